@@ -0,0 +1,74 @@
+package info.kgeorgiy.ja.garipov.arrayset.bench;
+
+import info.kgeorgiy.ja.garipov.arrayset.ArraySet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Random lookups in an ArraySet with and without the search index.
+// Elements are allocated in random order, so they are scattered over the heap as in long-lived sets.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ArraySetSearchBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "1000000", "16000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean searchIndex;
+
+    private ArraySet<Integer> set;
+    private Integer[] queries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        List<Integer> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            elements.add(2 * i);
+        }
+        Collections.shuffle(elements, random);
+        for (int i = 0; i < size; i++) {
+            // values above the Integer cache are boxed anew, in the shuffled order
+            elements.set(i, Integer.valueOf(elements.get(i).intValue()));
+        }
+        set = new ArraySet<>(elements, null, searchIndex);
+        queries = new Integer[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            // half of the queries are absent
+            queries[i] = random.nextInt(2 * size);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int ceiling() {
+        int sum = 0;
+        for (Integer query : queries) {
+            Integer ceiling = set.ceiling(query);
+            sum += ceiling == null ? 0 : ceiling;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int contains() {
+        int count = 0;
+        for (Integer query : queries) {
+            if (set.contains(query)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,64 @@
+package info.kgeorgiy.ja.garipov.walk.bench;
+
+import info.kgeorgiy.ja.garipov.walk.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Hashing visitors over many small files versus a few large ones of the same total size.
+// Output goes to a sink that only consumes the digests, so only reading and hashing are measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileTreeBenchmark {
+    @Param({"SMALL", "LARGE"})
+    public TreeGenerator.Shape shape;
+
+    @Param({"pjw", "xxh64"})
+    public String hasher;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path root;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("walk-bench");
+        shape.generator(42).generate(root);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        TreeGenerator.delete(root);
+    }
+
+    @Benchmark
+    public void hashTree(Blackhole blackhole) throws IOException {
+        Supplier<BufferHasher> hasherFactory = Hashers.get(hasher);
+        DigestWriter output = new DigestWriter() {
+            @Override
+            public void write(byte[] digest, String fileName, boolean failed) {
+                blackhole.consume(digest);
+            }
+
+            @Override
+            public void flush() {
+            }
+        };
+        Supplier<FileHasher> fileHasherFactory = () -> new FileHasher(hasherFactory.get());
+        try (HashingFileVisitor visitor = threads > 1
+                ? new ParallelHashingFileVisitor(fileHasherFactory, output, threads)
+                : new HashingFileVisitor(fileHasherFactory.get(), output, new WalkContext())) {
+            Files.walkFileTree(root, visitor);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package info.kgeorgiy.ja.garipov.walk.bench;
+
+import info.kgeorgiy.ja.garipov.walk.BufferHasher;
+import info.kgeorgiy.ja.garipov.walk.Hashers;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// In-memory hash throughput; a single invocation hashes DATA_SIZE bytes in bufferSize slices
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HasherBenchmark {
+    private static final int DATA_SIZE = 16 << 20;
+
+    @Param({"pjw", "xxh64", "crc32c", "SHA-256"})
+    public String hasher;
+
+    @Param({"4096", "65536", "1048576"})
+    public int bufferSize;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    private BufferHasher bufferHasher;
+    private ByteBuffer data;
+
+    @Setup
+    public void setup() {
+        bufferHasher = Hashers.get(hasher).get();
+        byte[] bytes = new byte[DATA_SIZE];
+        new Random(1).nextBytes(bytes);
+        data = direct ? ByteBuffer.allocateDirect(DATA_SIZE) : ByteBuffer.allocate(DATA_SIZE);
+        data.put(bytes).flip();
+    }
+
+    @Benchmark
+    public long hash() {
+        bufferHasher.reset();
+        for (int offset = 0; offset < DATA_SIZE; offset += bufferSize) {
+            ByteBuffer slice = data.duplicate();
+            slice.position(offset).limit(Math.min(offset + bufferSize, DATA_SIZE));
+            bufferHasher.update(slice);
+        }
+        return bufferHasher.digest();
+    }
+}
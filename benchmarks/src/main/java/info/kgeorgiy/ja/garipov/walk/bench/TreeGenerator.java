@@ -0,0 +1,87 @@
+package info.kgeorgiy.ja.garipov.walk.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic file trees: the same parameters and seed always give the same paths and contents
+public final class TreeGenerator {
+    private static final int WRITE_BUFFER = 1 << 16;
+
+    private final int files;
+    private final int fileSize;
+    private final int filesPerDirectory;
+    private final long seed;
+
+    public TreeGenerator(int files, int fileSize, int filesPerDirectory, long seed) {
+        this.files = files;
+        this.fileSize = fileSize;
+        this.filesPerDirectory = filesPerDirectory;
+        this.seed = seed;
+    }
+
+    // Returns the generated files in walk order
+    public List<Path> generate(Path root) throws IOException {
+        Random random = new Random(seed);
+        byte[] buffer = new byte[Math.min(fileSize, WRITE_BUFFER)];
+        List<Path> generated = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            Path directory = root.resolve(String.format("d%04d", i / filesPerDirectory));
+            if (i % filesPerDirectory == 0) {
+                Files.createDirectories(directory);
+            }
+            Path file = directory.resolve(String.format("f%06d.bin", i));
+            try (OutputStream output = Files.newOutputStream(file)) {
+                for (int left = fileSize; left > 0; left -= buffer.length) {
+                    random.nextBytes(buffer);
+                    output.write(buffer, 0, Math.min(left, buffer.length));
+                }
+            }
+            generated.add(file);
+        }
+        return generated;
+    }
+
+    public static void delete(Path root) throws IOException {
+        if (root == null || Files.notExists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // Small and large trees of the same total size, so that per-file overhead is what differs
+    public enum Shape {
+        SMALL(16384, 4 << 10, 256),
+        LARGE(4, 16 << 20, 4);
+
+        private final int files;
+        private final int fileSize;
+        private final int filesPerDirectory;
+
+        Shape(int files, int fileSize, int filesPerDirectory) {
+            this.files = files;
+            this.fileSize = fileSize;
+            this.filesPerDirectory = filesPerDirectory;
+        }
+
+        public TreeGenerator generator(long seed) {
+            return new TreeGenerator(files, fileSize, filesPerDirectory, seed);
+        }
+    }
+}
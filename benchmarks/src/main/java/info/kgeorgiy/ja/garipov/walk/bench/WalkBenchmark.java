@@ -0,0 +1,61 @@
+package info.kgeorgiy.ja.garipov.walk.bench;
+
+import info.kgeorgiy.ja.garipov.walk.RecursiveWalker;
+import info.kgeorgiy.ja.garipov.walk.WalkOptions;
+import info.kgeorgiy.ja.garipov.walk.Walker;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// End-to-end Walk (every file listed in the input) and RecursiveWalk (only the root listed),
+// including reading the input and writing the output file
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WalkBenchmark {
+    @Param({"SMALL", "LARGE"})
+    public TreeGenerator.Shape shape;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path directory;
+    private Path fileList;
+    private Path rootList;
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("walk-bench");
+        Path root = directory.resolve("tree");
+        List<Path> files = shape.generator(42).generate(root);
+        fileList = Files.write(directory.resolve("files.txt"),
+                files.stream().map(Path::toString).collect(Collectors.toList()));
+        rootList = Files.write(directory.resolve("roots.txt"), List.of(root.toString()));
+        output = directory.resolve("output.txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        TreeGenerator.delete(directory);
+    }
+
+    @Benchmark
+    public void walk() {
+        new Walker(new WalkOptions().setThreads(threads)).walk(new String[]{fileList.toString(), output.toString()});
+    }
+
+    @Benchmark
+    public void recursiveWalk() {
+        new RecursiveWalker(new WalkOptions().setThreads(threads))
+                .walk(new String[]{rootList.toString(), output.toString()});
+    }
+}
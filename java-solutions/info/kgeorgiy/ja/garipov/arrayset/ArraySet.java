@@ -3,71 +3,200 @@ package info.kgeorgiy.ja.garipov.arrayset;
 import java.util.*;
 
 public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
+    // Range [from, to) of a shared backing list, possibly in reverse order. Views of views are
+    // flattened into new offsets, so every view reads the backing list directly
     private static class ReversibleArrayList<T> extends AbstractList<T> implements RandomAccess {
         private final boolean reversed;
         private final List<T> array;
+        private final int from;
+        private final int to;
 
         public boolean isReversed() {
             return reversed;
         }
 
         public ReversibleArrayList() {
-            reversed = false;
-            array = new ArrayList<>();
+            this(new ArrayList<>());
         }
 
         public ReversibleArrayList(List<T> list) {
-            reversed = false;
-            array = list;
+            this(list, 0, list.size(), false);
         }
 
         public ReversibleArrayList(ReversibleArrayList<T> reversibleArrayList, boolean reversed) {
-            this.array = reversibleArrayList.array;
+            this(reversibleArrayList.array, reversibleArrayList.from, reversibleArrayList.to, reversed);
+        }
+
+        private ReversibleArrayList(List<T> array, int from, int to, boolean reversed) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
             this.reversed = reversed;
         }
 
+        // Elements [fromIndex, toIndex) of this list, in the same order
+        public ReversibleArrayList<T> range(int fromIndex, int toIndex) {
+            return reversed
+                    ? new ReversibleArrayList<>(array, to - toIndex, to - fromIndex, true)
+                    : new ReversibleArrayList<>(array, from + fromIndex, from + toIndex, false);
+        }
+
         @Override
         public T get(int i) {
-            return array.get(reversed ? size() - i - 1 : i);
+            return array.get(reversed ? to - i - 1 : from + i);
         }
 
         @Override
         public int size() {
-            return array.size();
+            return to - from;
+        }
+
+        // Goes through the iterator of the backing list, which is cheaper than get for a ChunkedList
+        @Override
+        public Iterator<T> iterator() {
+            ListIterator<T> iterator = array.listIterator(reversed ? to : from);
+            return new Iterator<>() {
+                private int left = to - from;
+
+                @Override
+                public boolean hasNext() {
+                    return left > 0;
+                }
+
+                @Override
+                public T next() {
+                    if (left == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    left--;
+                    return reversed ? iterator.previous() : iterator.next();
+                }
+            };
         }
     }
 
+    // both sorts are stable, so equal elements keep their order before deduplication
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
     private final ReversibleArrayList<T> array;
     private final Comparator<? super T> comparator;
+    // over the whole array.array in its own order, or null
+    private final SortedSearch<T> index;
 
     public ArraySet() {
         array = new ReversibleArrayList<>();
         comparator = null;
+        index = null;
     }
 
     public ArraySet(Comparator<? super T> comparator) {
         array = new ReversibleArrayList<>();
         this.comparator = comparator;
+        index = null;
     }
 
     private ArraySet(ReversibleArrayList<T> reversibleArrayList, Comparator<? super T> comparator){
+        this(reversibleArrayList, comparator, null);
+    }
+
+    private ArraySet(ReversibleArrayList<T> reversibleArrayList, Comparator<? super T> comparator,
+                     SortedSearch<T> index) {
         this.array = reversibleArrayList;
         this.comparator = comparator;
+        this.index = index;
     }
 
     public ArraySet(Collection<? extends T> collection) {
         this(collection, null);
     }
 
+    // Sorted sets with the same order are copied as is, other collections are sorted and deduplicated.
+    // Of equal elements the first one is kept, as TreeSet.addAll does
     public ArraySet(Collection<? extends T> collection, Comparator<? super T> comparator) {
-        TreeSet<T> treeSet = new TreeSet<>(comparator);
-        treeSet.addAll(collection);
-        array = new ReversibleArrayList<>(new ArrayList<>(treeSet));
+        this(collection, comparator, false);
+    }
+
+    // With searchIndex, lookups in this set and its descending set go through a SearchIndex,
+    // which pays off for sets of millions of elements. A copy of an ArraySet keeps its index anyway
+    @SuppressWarnings("unchecked")
+    public ArraySet(Collection<? extends T> collection, Comparator<? super T> comparator, boolean searchIndex) {
         this.comparator = comparator;
+        if (collection instanceof ArraySet && Objects.equals(((ArraySet<?>) collection).comparator, comparator)) {
+            // immutable, so the elements can be shared
+            array = ((ArraySet<T>) collection).array;
+        } else if (collection instanceof SortedSet && Objects.equals(((SortedSet<?>) collection).comparator(), comparator)) {
+            array = new ReversibleArrayList<>(Arrays.asList((T[]) collection.toArray()));
+        } else {
+            array = new ReversibleArrayList<>(sortedDistinct((T[]) collection.toArray()));
+        }
+        SortedSearch<T> shared = collection instanceof ArraySet && ((ArraySet<T>) collection).array == array
+                ? ((ArraySet<T>) collection).index : null;
+        index = shared != null ? shared : searchIndex ? createIndex() : null;
+    }
+
+    // Read-only set over a sorted list, with lookups done by the list itself
+    ArraySet(List<T> sorted, Comparator<? super T> comparator, SortedSearch<T> search) {
+        this(new ReversibleArrayList<>(sorted), comparator, search);
+    }
+
+    private SortedSearch<T> createIndex() {
+        // a shared descending array is sorted in the reverse of this set's order
+        return new SearchIndex<>(array.array, array.isReversed() ? Collections.reverseOrder(comparator) : comparator);
+    }
+
+    private List<T> sortedDistinct(T[] elements) {
+        if (elements.length == 1) {
+            // the same check of the element type as in TreeSet
+            compare(elements[0], elements[0]);
+        }
+        if (isStrictlySorted(elements)) {
+            return Arrays.asList(elements);
+        }
+        if (elements.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(elements, comparator);
+        } else {
+            Arrays.sort(elements, comparator);
+        }
+        int size = 0;
+        for (T element : elements) {
+            if (size == 0 || compare(elements[size - 1], element) != 0) {
+                elements[size++] = element;
+            }
+        }
+        return Arrays.asList(size == elements.length ? elements : Arrays.copyOf(elements, size));
+    }
+
+    private boolean isStrictlySorted(T[] elements) {
+        for (int i = 1; i < elements.length; i++) {
+            if (compare(elements[i - 1], elements[i]) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same result as Collections.binarySearch(array, t, comparator)
+    private int search(T t) {
+        if (index == null) {
+            return Collections.binarySearch(array, t, comparator);
+        }
+        int found = index.search(t);
+        if (array.from <= found && found < array.to) {
+            return array.isReversed() ? array.to - 1 - found : found - array.from;
+        }
+        // the index covers the whole backing list, which is sorted, so its answer is clamped to the view
+        int notLess = found >= 0 ? found : -found - 1;
+        int greater = found >= 0 ? found + 1 : notLess;
+        int insertion = array.isReversed() ? array.to - clamp(greater) : clamp(notLess) - array.from;
+        return -insertion - 1;
+    }
+
+    private int clamp(int index) {
+        return Math.max(array.from, Math.min(array.to, index));
     }
 
     private int binarySearch(T t, boolean equalityRequired, boolean greater) {
-        int index = Collections.binarySearch(array, t, comparator);
+        int index = search(t);
         if (index >= 0) {
             int addition = greater ? 1 : -1;
             index += equalityRequired ? 0 : addition;
@@ -129,7 +258,8 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
 
     @Override
     public ArraySet<T> descendingSet() {
-        return new ArraySet<>(new ReversibleArrayList<>(array, !array.isReversed()), Collections.reverseOrder(comparator));
+        return new ArraySet<>(new ReversibleArrayList<>(array, !array.isReversed()), Collections.reverseOrder(comparator),
+                index);
     }
 
     @Override
@@ -156,7 +286,7 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
         } else {
             int fromIndex = Math.max(binarySearch(fromElement, fromInclusive, true), 0);
             int toIndex = Math.min(binarySearch(toElement, toInclusive, false) + 1, size());
-            return new ArraySet<>(new ReversibleArrayList<>(array.array.subList(fromIndex, toIndex)), comparator);
+            return new ArraySet<>(array.range(fromIndex, Math.max(fromIndex, toIndex)), comparator, index);
         }
     }
 
@@ -222,15 +352,51 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
         return array.size();
     }
 
+    // Order statistics below are in this set's order, so they work the same on descending and sub-set views
+
+    // number of elements < t
+    public int rank(T t) {
+        int index = search(t);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    public T get(int index) {
+        Objects.checkIndex(index, size());
+        return array.get(index);
+    }
+
+    // position of t or -1
+    public int indexOf(T t) {
+        int index = search(t);
+        return index >= 0 ? index : -1;
+    }
+
+    // same as subSet(fromElement, fromInclusive, toElement, toInclusive).size()
+    public int countInRange(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        int from = search(fromElement);
+        from = from >= 0 ? (fromInclusive ? from : from + 1) : -from - 1;
+        int to = search(toElement);
+        to = to >= 0 ? (toInclusive ? to + 1 : to) : -to - 1;
+        return Math.max(to - from, 0);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public boolean contains(Object o) {
-        return Collections.binarySearch(array, (T) o, comparator) >= 0;
+        return search((T) o) >= 0;
     }
 
     // :NOTE-2: no need to override this
     @Override
     public boolean containsAll(Collection<?> c) {
+        if (c instanceof ArraySet && Objects.equals(((ArraySet<?>) c).comparator, comparator)) {
+            @SuppressWarnings("unchecked")
+            ArraySet<? extends T> other = (ArraySet<? extends T>) c;
+            return containsAll(other);
+        }
         for (Object cur : c) {
             if (!contains(cur)) {
                 return false;
@@ -238,4 +404,134 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
         }
         return true;
     }
+
+    private boolean containsAll(ArraySet<? extends T> other) {
+        if (other.size() > size()) {
+            return false;
+        }
+        int i = 0;
+        for (T element : other.array) {
+            i = gallop(array, i, size(), element);
+            if (i == size() || compare(array.get(i), element) != 0) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    // Set algebra with an ArraySet of the same comparator, by merging the sorted arrays.
+    // Runs of elements that do not interleave are found by galloping and copied as a whole,
+    // so combining a small set with a large one takes O(m log(n / m)) comparisons.
+    // Of equal elements, the ones of this set are kept.
+
+    public ArraySet<T> union(ArraySet<? extends T> other) {
+        checkComparator(other);
+        List<? extends T> a = array;
+        List<? extends T> b = other.array;
+        List<T> result = new ArrayList<>(a.size() + b.size());
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            int k = gallop(a, i, a.size(), b.get(j));
+            result.addAll(a.subList(i, k));
+            i = k;
+            if (i == a.size()) {
+                break;
+            }
+            k = gallop(b, j, b.size(), a.get(i));
+            result.addAll(b.subList(j, k));
+            j = k;
+            if (j < b.size() && compare(a.get(i), b.get(j)) == 0) {
+                result.add(a.get(i++));
+                j++;
+            }
+        }
+        result.addAll(a.subList(i, a.size()));
+        result.addAll(b.subList(j, b.size()));
+        return new ArraySet<>(new ReversibleArrayList<>(result), comparator);
+    }
+
+    public ArraySet<T> intersect(ArraySet<? extends T> other) {
+        checkComparator(other);
+        List<T> result = new ArrayList<>(Math.min(size(), other.size()));
+        if (other.size() < size()) {
+            int i = 0;
+            for (T element : other.array) {
+                i = gallop(array, i, size(), element);
+                if (i == size()) {
+                    break;
+                }
+                if (compare(array.get(i), element) == 0) {
+                    result.add(array.get(i++));
+                }
+            }
+        } else {
+            List<? extends T> b = other.array;
+            int j = 0;
+            for (T element : array) {
+                j = gallop(b, j, b.size(), element);
+                if (j == b.size()) {
+                    break;
+                }
+                if (compare(b.get(j), element) == 0) {
+                    result.add(element);
+                    j++;
+                }
+            }
+        }
+        return new ArraySet<>(new ReversibleArrayList<>(result), comparator);
+    }
+
+    // Elements of this set that are not in the other one
+    public ArraySet<T> difference(ArraySet<? extends T> other) {
+        checkComparator(other);
+        List<? extends T> b = other.array;
+        List<T> result = new ArrayList<>(size());
+        int i = 0;
+        int j = 0;
+        while (i < size() && j < b.size()) {
+            int k = gallop(array, i, size(), b.get(j));
+            result.addAll(array.subList(i, k));
+            i = k;
+            if (i == size()) {
+                break;
+            }
+            j = gallop(b, j, b.size(), array.get(i));
+            if (j < b.size() && compare(array.get(i), b.get(j)) == 0) {
+                i++;
+                j++;
+            }
+        }
+        result.addAll(array.subList(i, size()));
+        return new ArraySet<>(new ReversibleArrayList<>(result), comparator);
+    }
+
+    private void checkComparator(ArraySet<?> other) {
+        if (!Objects.equals(comparator, other.comparator)) {
+            throw new IllegalArgumentException("ArraySets should have the same comparator");
+        }
+    }
+
+    // First index in [from, to) of an element that is not less than key, or to:
+    // exponential search for the range, then binary search in it
+    private int gallop(List<? extends T> list, int from, int to, T key) {
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < to && compare(list.get(high), key) < 0) {
+            low = high + 1;
+            high = step < to - from ? from + step : to;
+            step <<= 1;
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(list.get(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
 }
@@ -0,0 +1,159 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+// Compact file format for sorted sets of longs and strings, read back by mapping the file.
+// The header is magic, kind, size, block size and maximal encoded length, big-endian ints.
+// Longs follow the header as fixed-width values. Strings are prefix-compressed in blocks
+// (see MappedStringList) after a table of block offsets.
+// Mapped sets are read-only ArraySets in the natural order that read the file on every access,
+// so loading a set costs a mapping and the pages are shared by all processes that map the file.
+public final class ArraySetFiles {
+    private static final int MAGIC = 0x41534554;
+    private static final int LONGS = 1;
+    private static final int STRINGS = 2;
+    private static final int HEADER = 24;
+    private static final int BLOCK = 16;
+
+    private ArraySetFiles() {
+    }
+
+    public static void writeLongs(Path file, Collection<Long> set) throws IOException {
+        // the file is in ascending order, while a descending LongArraySet gives its array the other way round
+        long[] elements = (set instanceof LongArraySet && ((LongArraySet) set).comparator() == null
+                ? (LongArraySet) set : new LongArraySet(set)).toLongArray();
+        if (HEADER + 8L * elements.length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many elements to map: " + elements.length);
+        }
+        try (FileChannel channel = create(file)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.write(new byte[HEADER]);
+            for (long e : elements) {
+                out.writeLong(e);
+            }
+            out.flush();
+            writeHeader(channel, LONGS, elements.length, 0, 0, new int[0]);
+        }
+    }
+
+    public static void writeStrings(Path file, Collection<String> set) throws IOException {
+        ArraySet<String> sorted = new ArraySet<>(set);
+        int[] offsets = new int[(sorted.size() + BLOCK - 1) / BLOCK];
+        int maxLength = 0;
+        try (FileChannel channel = create(file)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            // the offsets table is written with the header, once the offsets are known
+            out.write(new byte[HEADER + 4 * offsets.length]);
+            long position = 0;
+            byte[] previous = new byte[0];
+            int i = 0;
+            for (String s : sorted) {
+                byte[] bytes = MappedStringList.encode(s);
+                int shared = 0;
+                if (i % BLOCK == 0) {
+                    offsets[i / BLOCK] = (int) position;
+                } else {
+                    while (shared < previous.length && shared < bytes.length && previous[shared] == bytes[shared]) {
+                        shared++;
+                    }
+                }
+                position += writeVarInt(out, shared) + writeVarInt(out, bytes.length - shared);
+                out.write(bytes, shared, bytes.length - shared);
+                position += bytes.length - shared;
+                if (HEADER + 4L * offsets.length + position > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Strings are too long to map");
+                }
+                maxLength = Math.max(maxLength, bytes.length);
+                previous = bytes;
+                i++;
+            }
+            out.flush();
+            writeHeader(channel, STRINGS, sorted.size(), BLOCK, maxLength, offsets);
+        }
+    }
+
+    private static FileChannel create(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void writeHeader(FileChannel channel, int kind, int size, int block, int maxLength,
+                                    int[] offsets) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER + 4 * offsets.length);
+        header.putInt(MAGIC).putInt(kind).putInt(size).putInt(block).putInt(maxLength).putInt(0);
+        header.asIntBuffer().put(offsets);
+        header.rewind();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private static int writeVarInt(DataOutputStream out, int value) throws IOException {
+        int length = 1;
+        for (; value >= 0x80; value >>>= 7, length++) {
+            out.write(value & 0x7F | 0x80);
+        }
+        out.write(value);
+        return length;
+    }
+
+    // The header and the regions it describes are checked, the contents of the regions are trusted
+    public static ArraySet<Long> mapLongs(Path file) throws IOException {
+        ByteBuffer buffer = map(file, LONGS);
+        int size = buffer.getInt(8);
+        if (size < 0 || HEADER + 8L * size > buffer.limit()) {
+            throw new IOException("Corrupted long set file, " + size + " elements do not fit in it: " + file);
+        }
+        MappedLongList list = new MappedLongList(slice(buffer, HEADER, size * 8).asLongBuffer());
+        return new ArraySet<>(list, null, list);
+    }
+
+    public static ArraySet<String> mapStrings(Path file) throws IOException {
+        ByteBuffer buffer = map(file, STRINGS);
+        int size = buffer.getInt(8);
+        int block = buffer.getInt(12);
+        int maxLength = buffer.getInt(16);
+        if (size < 0 || block <= 0 || maxLength < 0) {
+            throw new IOException("Corrupted string set file, wrong size " + size + ", block " + block
+                    + " or length " + maxLength + ": " + file);
+        }
+        int blocks = (int) ((size + (long) block - 1) / block);
+        if (HEADER + 4L * blocks > buffer.limit()) {
+            throw new IOException("Corrupted string set file, offsets of " + blocks + " blocks do not fit in it: " + file);
+        }
+        int data = HEADER + 4 * blocks;
+        ByteBuffer strings = slice(buffer, data, buffer.limit() - data);
+        // blocks are written one after another, so the first and the last offsets bound all the others
+        if (blocks > 0 && (buffer.getInt(HEADER) != 0 || buffer.getInt(data - 4) >= strings.limit())) {
+            throw new IOException("Corrupted string set file, block offsets are out of the data: " + file);
+        }
+        MappedStringList list = new MappedStringList(slice(buffer, HEADER, 4 * blocks).asIntBuffer(),
+                strings, size, block, maxLength);
+        return new ArraySet<>(list, null, list);
+    }
+
+    private static ByteBuffer map(Path file, int kind) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != kind) {
+                throw new IOException("Not a " + (kind == LONGS ? "long" : "string") + " set file: " + file);
+            }
+            return buffer;
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int from, int length) {
+        return buffer.duplicate().position(from).limit(from + length).slice();
+    }
+}
@@ -0,0 +1,227 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.util.*;
+
+// Immutable sorted list split into chunks of at most CHUNK elements. A batch of changes creates
+// a new list that copies only the chunks the changes fall into and shares all the others,
+// plus the tables of chunk starts and last elements, which take one entry per chunk.
+class ChunkedList<T> extends AbstractList<T> implements RandomAccess, SortedSearch<T> {
+    static final int CHUNK = 512;
+
+    private final Comparator<? super T> comparator;
+    private final Object[][] chunks;
+    // starts[c] is the index of the first element of chunks[c], starts[chunks.length] is the size
+    private final int[] starts;
+    private final Object[] lasts;
+
+    ChunkedList(Comparator<? super T> comparator, Object[] sorted) {
+        this(comparator, split(sorted, 0, sorted.length, new ArrayList<>()).toArray(new Object[0][]));
+    }
+
+    private ChunkedList(Comparator<? super T> comparator, Object[][] chunks) {
+        this.comparator = comparator;
+        this.chunks = chunks;
+        this.starts = new int[chunks.length + 1];
+        this.lasts = new Object[chunks.length];
+        for (int c = 0; c < chunks.length; c++) {
+            starts[c + 1] = starts[c] + chunks[c].length;
+            lasts[c] = chunks[c][chunks[c].length - 1];
+        }
+    }
+
+    // Evenly splits [from, to) into chunks of at most CHUNK elements
+    private static List<Object[]> split(Object[] elements, int from, int to, List<Object[]> result) {
+        int count = (to - from + CHUNK - 1) / CHUNK;
+        for (int i = 0; i < count; i++) {
+            result.add(Arrays.copyOfRange(elements, from + (int) ((long) (to - from) * i / count),
+                    from + (int) ((long) (to - from) * (i + 1) / count)));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object e1, Object e2) {
+        if (comparator == null) {
+            return ((Comparable<Object>) e1).compareTo(e2);
+        } else {
+            return comparator.compare((T) e1, (T) e2);
+        }
+    }
+
+    // First index in [from, to) of an element not less than key (strict: greater than key), or to
+    private int search(Object[] array, int from, int to, Object key, boolean strict) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            int compare = compare(array[middle], key);
+            if (compare < 0 || strict && compare == 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    @Override
+    public int search(T key) {
+        int c = search(lasts, 0, lasts.length, key, false);
+        if (c == chunks.length) {
+            return -size() - 1;
+        }
+        // the chunk ends with an element not less than key, so the position is inside it
+        int index = search(chunks[c], 0, chunks[c].length, key, false);
+        return compare(chunks[c][index], key) == 0 ? starts[c] + index : -(starts[c] + index) - 1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size());
+        int c = Arrays.binarySearch(starts, index);
+        // equal starts belong to no chunk, as chunks are not empty
+        c = c >= 0 ? c : -c - 2;
+        return (T) chunks[c][index - starts[c]];
+    }
+
+    @Override
+    public int size() {
+        return starts[chunks.length];
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return listIterator(0);
+    }
+
+    // Walks the chunks directly, so that a scan does not search for the chunk of every element
+    @Override
+    public ListIterator<T> listIterator(int index) {
+        Objects.checkIndex(index, size() + 1);
+        int first = Arrays.binarySearch(starts, index);
+        int start = first >= 0 ? first : -first - 2;
+        return new ListIterator<>() {
+            private int position = index;
+            private int c = start;
+            private int i = index - starts[start];
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                while (i == chunks[c].length) {
+                    c++;
+                    i = 0;
+                }
+                position++;
+                return (T) chunks[c][i++];
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return position > 0;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T previous() {
+                if (!hasPrevious()) {
+                    throw new NoSuchElementException();
+                }
+                while (i == 0) {
+                    i = chunks[--c].length;
+                }
+                position--;
+                return (T) chunks[c][--i];
+            }
+
+            @Override
+            public int nextIndex() {
+                return position;
+            }
+
+            @Override
+            public int previousIndex() {
+                return position - 1;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void set(T t) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void add(T t) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    // Applies the changes, true standing for an addition and false for a removal.
+    // An addition of an element already in the list keeps the old element, as TreeSet does
+    ChunkedList<T> apply(NavigableMap<T, Boolean> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        List<Object[]> result = new ArrayList<>(chunks.length + changes.size() / CHUNK + 1);
+        Iterator<Map.Entry<T, Boolean>> iterator = changes.entrySet().iterator();
+        Map.Entry<T, Boolean> change = iterator.next();
+        int next = 0;
+        while (change != null) {
+            // the chunk of the change: the first one that ends not before it, or the last one
+            int c = Math.max(Math.min(search(lasts, next, lasts.length, change.getKey(), false), chunks.length - 1), 0);
+            result.addAll(Arrays.asList(chunks).subList(next, c));
+            Object[] chunk = chunks.length == 0 ? new Object[0] : chunks[c];
+            boolean isLast = c >= chunks.length - 1;
+            Object[] merged = new Object[chunk.length + 16];
+            int size = 0;
+            int i = 0;
+            while (change != null && (isLast || compare(change.getKey(), lasts[c]) <= 0)) {
+                int position = search(chunk, i, chunk.length, change.getKey(), false);
+                if (merged.length < size + 1 + chunk.length - i) {
+                    merged = Arrays.copyOf(merged, 2 * merged.length);
+                }
+                System.arraycopy(chunk, i, merged, size, position - i);
+                size += position - i;
+                i = position;
+                boolean present = i < chunk.length && compare(chunk[i], change.getKey()) == 0;
+                if (present) {
+                    if (change.getValue()) {
+                        merged[size++] = chunk[i];
+                    }
+                    i++;
+                } else if (change.getValue()) {
+                    merged[size++] = change.getKey();
+                }
+                change = iterator.hasNext() ? iterator.next() : null;
+            }
+            System.arraycopy(chunk, i, merged, size, chunk.length - i);
+            size += chunk.length - i;
+            Object[] last = result.isEmpty() ? null : result.get(result.size() - 1);
+            if (size < CHUNK / 4 && last != null && last.length + size <= CHUNK) {
+                // a chunk that shrank is joined to the previous one, so that the chunks do not get too small
+                Object[] joined = Arrays.copyOf(last, last.length + size);
+                System.arraycopy(merged, 0, joined, last.length, size);
+                result.set(result.size() - 1, joined);
+            } else {
+                split(merged, 0, size, result);
+            }
+            next = c + 1;
+        }
+        if (next < chunks.length) {
+            result.addAll(Arrays.asList(chunks).subList(next, chunks.length));
+        }
+        return new ChunkedList<>(comparator, result.toArray(new Object[0][]));
+    }
+}
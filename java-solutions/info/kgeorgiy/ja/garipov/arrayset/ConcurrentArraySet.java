@@ -0,0 +1,266 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.util.*;
+
+// Thread-safe sorted set for read-heavy sharing. Reads take no locks: they go to an immutable
+// ArraySet snapshot over a ChunkedList, published through a volatile field. Writers are serialized,
+// and every call, a batch of changes for update, publishes one new snapshot that copies only
+// the chunks the changes fall into. Iterators and views are weakly consistent, as the ones
+// of ConcurrentSkipListSet: every call sees some published snapshot.
+public class ConcurrentArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
+    private final Comparator<? super T> comparator;
+    // written under the lock only
+    private ChunkedList<T> chunks;
+    private volatile ArraySet<T> snapshot;
+
+    public ConcurrentArraySet() {
+        this(Collections.emptyList(), null);
+    }
+
+    public ConcurrentArraySet(Comparator<? super T> comparator) {
+        this(Collections.emptyList(), comparator);
+    }
+
+    public ConcurrentArraySet(Collection<? extends T> collection) {
+        this(collection, null);
+    }
+
+    public ConcurrentArraySet(Collection<? extends T> collection, Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        publish(new ChunkedList<>(comparator, new ArraySet<T>(collection, comparator).toArray()));
+    }
+
+    private void publish(ChunkedList<T> chunks) {
+        this.chunks = chunks;
+        snapshot = new ArraySet<>(chunks, comparator, chunks);
+    }
+
+    // Current contents as an immutable set, with all the queries of ArraySet
+    public ArraySet<T> snapshot() {
+        return snapshot;
+    }
+
+    // Adds and then removes the given elements, publishing a single snapshot
+    public synchronized void update(Collection<? extends T> added, Collection<?> removed) {
+        NavigableMap<T, Boolean> changes = new TreeMap<>(comparator);
+        for (T e : added) {
+            changes.putIfAbsent(e, true);
+        }
+        for (Object e : removed) {
+            @SuppressWarnings("unchecked")
+            T t = (T) e;
+            changes.put(t, false);
+        }
+        publish(chunks.apply(changes));
+    }
+
+    private boolean change(T e, boolean add) {
+        NavigableMap<T, Boolean> changes = new TreeMap<>(comparator);
+        changes.put(e, add);
+        ChunkedList<T> updated = chunks.apply(changes);
+        if (updated.size() == chunks.size()) {
+            return false;
+        }
+        publish(updated);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean add(T t) {
+        return change(t, true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized boolean remove(Object o) {
+        return change((T) o, false);
+    }
+
+    @Override
+    public synchronized boolean addAll(Collection<? extends T> c) {
+        int size = chunks.size();
+        update(c, Collections.emptyList());
+        return chunks.size() != size;
+    }
+
+    @Override
+    public synchronized boolean removeAll(Collection<?> c) {
+        int size = chunks.size();
+        update(Collections.emptyList(), c);
+        return chunks.size() != size;
+    }
+
+    @Override
+    public synchronized boolean retainAll(Collection<?> c) {
+        List<T> removed = new ArrayList<>();
+        for (T e : chunks) {
+            if (!c.contains(e)) {
+                removed.add(e);
+            }
+        }
+        update(Collections.emptyList(), removed);
+        return !removed.isEmpty();
+    }
+
+    @Override
+    public synchronized void clear() {
+        publish(new ChunkedList<>(comparator, new Object[0]));
+    }
+
+    @Override
+    public synchronized T pollFirst() {
+        T first = snapshot.isEmpty() ? null : snapshot.first();
+        if (first != null) {
+            change(first, false);
+        }
+        return first;
+    }
+
+    @Override
+    public synchronized T pollLast() {
+        T last = snapshot.isEmpty() ? null : snapshot.last();
+        if (last != null) {
+            change(last, false);
+        }
+        return last;
+    }
+
+    @Override
+    public T lower(T t) {
+        return snapshot.lower(t);
+    }
+
+    @Override
+    public T floor(T t) {
+        return snapshot.floor(t);
+    }
+
+    @Override
+    public T ceiling(T t) {
+        return snapshot.ceiling(t);
+    }
+
+    @Override
+    public T higher(T t) {
+        return snapshot.higher(t);
+    }
+
+    @Override
+    public T first() {
+        return snapshot.first();
+    }
+
+    @Override
+    public T last() {
+        return snapshot.last();
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return snapshot.contains(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return snapshot.toArray();
+    }
+
+    @Override
+    public <E> E[] toArray(E[] a) {
+        return snapshot.toArray(a);
+    }
+
+    // Iterates over the snapshot taken at the call, Iterator.remove removes from this set
+    @Override
+    public Iterator<T> iterator() {
+        return removing(snapshot.iterator());
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+        return removing(snapshot.descendingIterator());
+    }
+
+    private Iterator<T> removing(Iterator<T> iterator) {
+        return new Iterator<>() {
+            private T last = null;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                last = iterator.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ConcurrentArraySet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public NavigableSet<T> descendingSet() {
+        return new NavigableSetView<>(this, true, null, false, true, null, false, true);
+    }
+
+    @Override
+    public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        return new NavigableSetView<>(this, false, fromElement, fromInclusive, false, toElement, toInclusive, false);
+    }
+
+    @Override
+    public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+        return new NavigableSetView<>(this, true, null, false, false, toElement, inclusive, false);
+    }
+
+    @Override
+    public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+        return new NavigableSetView<>(this, false, fromElement, inclusive, true, null, false, false);
+    }
+
+    @Override
+    public SortedSet<T> subSet(T fromElement, T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> headSet(T toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> tailSet(T fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(T e1, T e2) {
+        if (comparator == null) {
+            return ((Comparable<T>) e1).compareTo(e2);
+        } else {
+            return comparator.compare(e1, e2);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.util.*;
+
+// NavigableSet of int values in natural order, stored unboxed in a sorted array.
+// Sub-sets and descending sets are views sharing the array, so they are created without copying.
+public class IntArraySet extends PrimitiveArraySet<Integer, IntArraySet> {
+    private final int[] elements;
+
+    public IntArraySet() {
+        this(new int[0], 0, 0, false);
+    }
+
+    public IntArraySet(int... elements) {
+        this(sortedDistinct(elements.clone()), false);
+    }
+
+    public IntArraySet(Collection<? extends Integer> collection) {
+        this(sortedDistinct(collection.stream().mapToInt(Integer::intValue).toArray()), false);
+    }
+
+    private IntArraySet(int[] sorted, boolean reversed) {
+        this(sorted, 0, sorted.length, reversed);
+    }
+
+    private IntArraySet(int[] elements, int from, int to, boolean reversed) {
+        super(from, to, reversed);
+        this.elements = elements;
+    }
+
+    private static int[] sortedDistinct(int[] elements) {
+        Arrays.sort(elements);
+        int size = 0;
+        for (int i = 0; i < elements.length; i++) {
+            if (size == 0 || elements[size - 1] != elements[i]) {
+                elements[size++] = elements[i];
+            }
+        }
+        return size == elements.length ? elements : Arrays.copyOf(elements, size);
+    }
+
+    private int search(int e) {
+        return Arrays.binarySearch(elements, from, to, e);
+    }
+
+    @Override
+    protected int search(Integer e) {
+        return search((int) e);
+    }
+
+    @Override
+    protected Integer get(int index) {
+        return elements[index];
+    }
+
+    @Override
+    protected IntArraySet view(int from, int to, boolean reversed) {
+        return new IntArraySet(elements, from, to, reversed);
+    }
+
+    // max < e in the set order, or absent
+    public int lower(int e, int absent) {
+        int index = lowerIndex(search(e));
+        return checkIndexInBounds(index) ? elements[index] : absent;
+    }
+
+    // max <= e in the set order, or absent
+    public int floor(int e, int absent) {
+        int index = floorIndex(search(e));
+        return checkIndexInBounds(index) ? elements[index] : absent;
+    }
+
+    // min >= e in the set order, or absent
+    public int ceiling(int e, int absent) {
+        int index = ceilingIndexInOrder(search(e));
+        return checkIndexInBounds(index) ? elements[index] : absent;
+    }
+
+    // min > e in the set order, or absent
+    public int higher(int e, int absent) {
+        int index = higherIndexInOrder(search(e));
+        return checkIndexInBounds(index) ? elements[index] : absent;
+    }
+
+    public boolean contains(int e) {
+        return search(e) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains((int) (Integer) o);
+    }
+
+    public int firstInt() {
+        return elements[firstIndex()];
+    }
+
+    public int lastInt() {
+        return elements[lastIndex()];
+    }
+
+    public int[] toIntArray() {
+        int[] result = Arrays.copyOfRange(elements, from, to);
+        if (reversed) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                int element = result[i];
+                result[i] = result[j];
+                result[j] = element;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = reversed ? to - 1 : from;
+
+            @Override
+            public boolean hasNext() {
+                return checkIndexInBounds(next);
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int element = elements[next];
+                next += reversed ? -1 : 1;
+                return element;
+            }
+        };
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    public IntArraySet subSet(int fromElement, boolean fromInclusive, int toElement, boolean toInclusive) {
+        int compare = Integer.compare(fromElement, toElement);
+        if (reversed ? compare < 0 : compare > 0) {
+            throw new IllegalArgumentException();
+        }
+        return subSetFound(search(fromElement), fromInclusive, search(toElement), toInclusive);
+    }
+
+    public IntArraySet headSet(int toElement, boolean inclusive) {
+        return headSetFound(search(toElement), inclusive);
+    }
+
+    public IntArraySet tailSet(int fromElement, boolean inclusive) {
+        return tailSetFound(search(fromElement), inclusive);
+    }
+}
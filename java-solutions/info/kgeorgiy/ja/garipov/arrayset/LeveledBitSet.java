@@ -0,0 +1,118 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-size bit set that also keeps, on each level above the bits, which words of the level below
+// are all ones. The next or previous clear bit is found by climbing over full words and descending
+// into the first one that is not, so it takes O(log_64 size) however long the run of set bits is.
+class LeveledBitSet {
+    // levels[0] are the bits, bit i of levels[k + 1] is set iff word i of levels[k] is all ones
+    private final long[][] levels;
+    private final int size;
+
+    LeveledBitSet(int size) {
+        this.size = size;
+        List<long[]> levels = new ArrayList<>();
+        int words = size;
+        do {
+            words = (words + 63) >>> 6;
+            levels.add(new long[Math.max(words, 1)]);
+        } while (words > 1);
+        this.levels = levels.toArray(new long[0][]);
+    }
+
+    boolean get(int index) {
+        return (levels[0][index >>> 6] & 1L << index) != 0;
+    }
+
+    void set(int index) {
+        for (long[] words : levels) {
+            int word = index >>> 6;
+            words[word] |= 1L << index;
+            if (words[word] != -1L) {
+                return;
+            }
+            index = word;
+        }
+    }
+
+    void clear(int index) {
+        for (long[] words : levels) {
+            int word = index >>> 6;
+            boolean full = words[word] == -1L;
+            words[word] &= ~(1L << index);
+            if (!full) {
+                return;
+            }
+            index = word;
+        }
+    }
+
+    // First clear bit at or after index, or size if there is none before it
+    int nextClearBit(int index) {
+        int level = 0;
+        while (true) {
+            if (level == levels.length || index >>> 6 >= levels[level].length) {
+                return size;
+            }
+            int word = index >>> 6;
+            long clear = ~levels[level][word] & -1L << index;
+            if (clear != 0) {
+                index = (word << 6) + Long.numberOfTrailingZeros(clear);
+                break;
+            }
+            index = word + 1;
+            level++;
+        }
+        for (; level > 0; level--) {
+            if (index >= levels[level - 1].length) {
+                return size;
+            }
+            index = (index << 6) + Long.numberOfTrailingZeros(~levels[level - 1][index]);
+        }
+        return Math.min(index, size);
+    }
+
+    // Last clear bit at or before index, or -1
+    int previousClearBit(int index) {
+        if (index < 0) {
+            return -1;
+        }
+        int level = 0;
+        while (true) {
+            int word = index >>> 6;
+            long clear = ~levels[level][word] & -1L >>> 63 - (index & 63);
+            if (clear != 0) {
+                index = (word << 6) + 63 - Long.numberOfLeadingZeros(clear);
+                break;
+            }
+            if (word == 0) {
+                return -1;
+            }
+            index = word - 1;
+            level++;
+        }
+        for (; level > 0; level--) {
+            index = (index << 6) + 63 - Long.numberOfLeadingZeros(~levels[level - 1][index]);
+        }
+        return index;
+    }
+
+    // First set bit at or after index, or -1. Scans the bits, so it is meant for passes over the whole set
+    int nextSetBit(int index) {
+        long[] words = levels[0];
+        int word = index >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long set = words[word] & -1L << index;
+        while (set == 0) {
+            if (++word == words.length) {
+                return -1;
+            }
+            set = words[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(set);
+    }
+}
@@ -0,0 +1,156 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.util.*;
+
+// NavigableSet of long values in natural order, stored unboxed in a sorted array.
+// Sub-sets and descending sets are views sharing the array, so they are created without copying.
+public class LongArraySet extends PrimitiveArraySet<Long, LongArraySet> {
+    private final long[] elements;
+
+    public LongArraySet() {
+        this(new long[0], 0, 0, false);
+    }
+
+    public LongArraySet(long... elements) {
+        this(sortedDistinct(elements.clone()), false);
+    }
+
+    public LongArraySet(Collection<? extends Long> collection) {
+        this(sortedDistinct(collection.stream().mapToLong(Long::longValue).toArray()), false);
+    }
+
+    private LongArraySet(long[] sorted, boolean reversed) {
+        this(sorted, 0, sorted.length, reversed);
+    }
+
+    private LongArraySet(long[] elements, int from, int to, boolean reversed) {
+        super(from, to, reversed);
+        this.elements = elements;
+    }
+
+    private static long[] sortedDistinct(long[] elements) {
+        Arrays.sort(elements);
+        int size = 0;
+        for (int i = 0; i < elements.length; i++) {
+            if (size == 0 || elements[size - 1] != elements[i]) {
+                elements[size++] = elements[i];
+            }
+        }
+        return size == elements.length ? elements : Arrays.copyOf(elements, size);
+    }
+
+    private int search(long e) {
+        return Arrays.binarySearch(elements, from, to, e);
+    }
+
+    @Override
+    protected int search(Long e) {
+        return search((long) e);
+    }
+
+    @Override
+    protected Long get(int index) {
+        return elements[index];
+    }
+
+    @Override
+    protected LongArraySet view(int from, int to, boolean reversed) {
+        return new LongArraySet(elements, from, to, reversed);
+    }
+
+    // max < e in the set order, or absent
+    public long lower(long e, long absent) {
+        int index = lowerIndex(search(e));
+        return checkIndexInBounds(index) ? elements[index] : absent;
+    }
+
+    // max <= e in the set order, or absent
+    public long floor(long e, long absent) {
+        int index = floorIndex(search(e));
+        return checkIndexInBounds(index) ? elements[index] : absent;
+    }
+
+    // min >= e in the set order, or absent
+    public long ceiling(long e, long absent) {
+        int index = ceilingIndexInOrder(search(e));
+        return checkIndexInBounds(index) ? elements[index] : absent;
+    }
+
+    // min > e in the set order, or absent
+    public long higher(long e, long absent) {
+        int index = higherIndexInOrder(search(e));
+        return checkIndexInBounds(index) ? elements[index] : absent;
+    }
+
+    public boolean contains(long e) {
+        return search(e) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && contains((long) (Long) o);
+    }
+
+    public long firstLong() {
+        return elements[firstIndex()];
+    }
+
+    public long lastLong() {
+        return elements[lastIndex()];
+    }
+
+    public long[] toLongArray() {
+        long[] result = Arrays.copyOfRange(elements, from, to);
+        if (reversed) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                long element = result[i];
+                result[i] = result[j];
+                result[j] = element;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int next = reversed ? to - 1 : from;
+
+            @Override
+            public boolean hasNext() {
+                return checkIndexInBounds(next);
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long element = elements[next];
+                next += reversed ? -1 : 1;
+                return element;
+            }
+        };
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    public LongArraySet subSet(long fromElement, boolean fromInclusive, long toElement, boolean toInclusive) {
+        int compare = Long.compare(fromElement, toElement);
+        if (reversed ? compare < 0 : compare > 0) {
+            throw new IllegalArgumentException();
+        }
+        return subSetFound(search(fromElement), fromInclusive, search(toElement), toInclusive);
+    }
+
+    public LongArraySet headSet(long toElement, boolean inclusive) {
+        return headSetFound(search(toElement), inclusive);
+    }
+
+    public LongArraySet tailSet(long fromElement, boolean inclusive) {
+        return tailSetFound(search(fromElement), inclusive);
+    }
+}
@@ -0,0 +1,45 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Sorted distinct longs read from a mapped file, searched without boxing
+class MappedLongList extends AbstractList<Long> implements RandomAccess, SortedSearch<Long> {
+    private final LongBuffer elements;
+
+    MappedLongList(LongBuffer elements) {
+        this.elements = elements;
+    }
+
+    @Override
+    public Long get(int index) {
+        Objects.checkIndex(index, size());
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.limit();
+    }
+
+    @Override
+    public int search(Long key) {
+        long k = key;
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long e = elements.get(middle);
+            if (e < k) {
+                low = middle + 1;
+            } else if (e > k) {
+                high = middle;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+}
@@ -0,0 +1,156 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Sorted distinct strings read from a mapped file. The strings are split into blocks of a fixed size,
+// every string is stored as the length of the prefix it shares with the previous one in the block and
+// the rest of its bytes, and the offsets table points to the start of every block.
+// Searches compare encoded bytes and create no strings.
+class MappedStringList extends AbstractList<String> implements RandomAccess, SortedSearch<String> {
+    private final IntBuffer offsets;
+    private final ByteBuffer data;
+    private final int size;
+    private final int block;
+    private final int maxLength;
+
+    MappedStringList(IntBuffer offsets, ByteBuffer data, int size, int block, int maxLength) {
+        this.offsets = offsets;
+        this.data = data;
+        this.size = size;
+        this.block = block;
+        this.maxLength = maxLength;
+    }
+
+    // Every char is encoded as UTF-8 on its own, surrogates included, so the order of unsigned bytes
+    // is the order of String.compareTo
+    static byte[] encode(String s) {
+        byte[] bytes = new byte[3 * s.length()];
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else {
+                bytes[length++] = (byte) (0xE0 | c >> 12);
+                bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private static String decode(byte[] bytes, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        for (int i = 0; i < length; ) {
+            int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+                i++;
+            } else if (b < 0xE0) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | bytes[i + 1] & 0x3F);
+                i += 2;
+            } else {
+                chars[count++] = (char) ((b & 0x0F) << 12 | (bytes[i + 1] & 0x3F) << 6 | bytes[i + 2] & 0x3F);
+                i += 3;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    // Decodes the strings of a block one by one
+    private class Cursor {
+        private final byte[] bytes = new byte[maxLength];
+        private int length;
+        private int position;
+
+        void seek(int block) {
+            position = offsets.get(block);
+        }
+
+        void next() {
+            int shared = readVarInt();
+            int suffix = readVarInt();
+            for (int i = 0; i < suffix; i++) {
+                bytes[shared + i] = data.get(position++);
+            }
+            length = shared + suffix;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        int compare(byte[] key) {
+            return Arrays.compareUnsigned(bytes, 0, length, key, 0, key.length);
+        }
+    }
+
+    @Override
+    public String get(int index) {
+        Objects.checkIndex(index, size);
+        Cursor cursor = new Cursor();
+        cursor.seek(index / block);
+        for (int i = index % block; i >= 0; i--) {
+            cursor.next();
+        }
+        return decode(cursor.bytes, cursor.length);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int search(String key) {
+        byte[] target = encode(key);
+        Cursor cursor = new Cursor();
+        // the number of blocks that start before the key; the block after them, if any, starts after it
+        int low = 0;
+        int high = offsets.limit();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            cursor.seek(middle);
+            cursor.next();
+            int compare = cursor.compare(target);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle;
+            } else {
+                return middle * block;
+            }
+        }
+        if (low == 0) {
+            return -1;
+        }
+        int index = (low - 1) * block;
+        int end = Math.min(size, index + block);
+        cursor.seek(low - 1);
+        cursor.next();
+        while (++index < end) {
+            cursor.next();
+            int compare = cursor.compare(target);
+            if (compare >= 0) {
+                return compare == 0 ? index : -index - 1;
+            }
+        }
+        return -end - 1;
+    }
+}
@@ -0,0 +1,467 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.util.*;
+
+// Mutable sorted set over a sorted array. Removed elements of the array are marked in a leveled bit set,
+// and inserted ones are kept in a small sorted delta, which is merged into the array
+// when it outgrows DELTA_FACTOR * sqrt(size) or when more than half of the array is removed.
+// Reads look at both and take O(log n), as runs of removed elements are skipped in O(log n) too.
+// pollFirst and pollLast move the bounds of the array, so they are O(1) amortized.
+public class MutableArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
+    private static final int MIN_DELTA = 64;
+    // shifting the delta on insert is a cheap block move, while a merge copies the whole array
+    private static final int DELTA_FACTOR = 8;
+
+    private final Comparator<? super T> comparator;
+    // live elements of the array are the ones in [head, tail) that are not deleted
+    private Object[] elements;
+    private int head;
+    private int tail;
+    private LeveledBitSet deleted;
+    private int deletedCount = 0;
+    // sorted inserted elements in [addedHead, addedTail), none of them equal to an element in [head, tail)
+    private Object[] added = new Object[MIN_DELTA];
+    private int addedHead = 0;
+    private int addedTail = 0;
+    private int modCount = 0;
+
+    public MutableArraySet() {
+        this(Collections.emptyList(), null);
+    }
+
+    public MutableArraySet(Comparator<? super T> comparator) {
+        this(Collections.emptyList(), comparator);
+    }
+
+    public MutableArraySet(Collection<? extends T> collection) {
+        this(collection, null);
+    }
+
+    public MutableArraySet(Collection<? extends T> collection, Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.elements = new ArraySet<T>(collection, comparator).toArray();
+        this.head = 0;
+        this.tail = elements.length;
+        this.deleted = new LeveledBitSet(elements.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object e1, Object e2) {
+        if (comparator == null) {
+            return ((Comparable<Object>) e1).compareTo(e2);
+        } else {
+            return comparator.compare((T) e1, (T) e2);
+        }
+    }
+
+    // First index in [from, to) of an element not less than e (strict: greater than e), or to
+    private int search(Object[] array, int from, int to, Object e, boolean strict) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            int compare = compare(array[middle], e);
+            if (compare < 0 || strict && compare == 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    private int nextAlive(int index) {
+        return deleted.nextClearBit(index);
+    }
+
+    // -1 if there is none at or before index
+    private int previousAlive(int index) {
+        int alive = index < head ? -1 : deleted.previousClearBit(index);
+        return alive < head ? -1 : alive;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T element(int index) {
+        return (T) elements[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private T addedElement(int index) {
+        return (T) added[index];
+    }
+
+    // min >= e (strict: min > e) of the array and of the delta
+    private T ceiling(T e, boolean strict) {
+        int index = nextAlive(search(elements, head, tail, e, strict));
+        int addedIndex = search(added, addedHead, addedTail, e, strict);
+        return min(index < tail ? element(index) : null, addedIndex < addedTail ? addedElement(addedIndex) : null);
+    }
+
+    // max <= e (strict: max < e)
+    private T floor(T e, boolean strict) {
+        int index = previousAlive(search(elements, head, tail, e, !strict) - 1);
+        int addedIndex = search(added, addedHead, addedTail, e, !strict) - 1;
+        return max(index >= 0 ? element(index) : null, addedIndex >= addedHead ? addedElement(addedIndex) : null);
+    }
+
+    private T min(T e1, T e2) {
+        return e1 == null ? e2 : e2 == null || compare(e1, e2) < 0 ? e1 : e2;
+    }
+
+    private T max(T e1, T e2) {
+        return e1 == null ? e2 : e2 == null || compare(e1, e2) > 0 ? e1 : e2;
+    }
+
+    @Override
+    public T lower(T t) {
+        return floor(t, true);
+    }
+
+    @Override
+    public T floor(T t) {
+        return floor(t, false);
+    }
+
+    @Override
+    public T ceiling(T t) {
+        return ceiling(t, false);
+    }
+
+    @Override
+    public T higher(T t) {
+        return ceiling(t, true);
+    }
+
+    @Override
+    public T first() {
+        T first = firstOrNull();
+        if (first == null) {
+            throw new NoSuchElementException("MutableArraySet is empty");
+        }
+        return first;
+    }
+
+    @Override
+    public T last() {
+        T last = lastOrNull();
+        if (last == null) {
+            throw new NoSuchElementException("MutableArraySet is empty");
+        }
+        return last;
+    }
+
+    private T firstOrNull() {
+        int index = nextAlive(head);
+        return min(index < tail ? element(index) : null, addedHead < addedTail ? addedElement(addedHead) : null);
+    }
+
+    private T lastOrNull() {
+        int index = previousAlive(tail - 1);
+        return max(index >= 0 ? element(index) : null, addedHead < addedTail ? addedElement(addedTail - 1) : null);
+    }
+
+    @Override
+    public T pollFirst() {
+        int index = nextAlive(head);
+        if (index < tail && (addedHead == addedTail || compare(elements[index], added[addedHead]) < 0)) {
+            T first = element(index);
+            // deleted elements passed by the head are gone for good
+            clearDeleted(head, index);
+            elements[index] = null;
+            head = index + 1;
+            modCount++;
+            compactIfSparse();
+            return first;
+        }
+        if (addedHead < addedTail) {
+            T first = addedElement(addedHead);
+            added[addedHead++] = null;
+            modCount++;
+            return first;
+        }
+        return null;
+    }
+
+    @Override
+    public T pollLast() {
+        int index = previousAlive(tail - 1);
+        if (index >= 0 && (addedHead == addedTail || compare(elements[index], added[addedTail - 1]) > 0)) {
+            T last = element(index);
+            clearDeleted(index + 1, tail);
+            elements[index] = null;
+            tail = index;
+            modCount++;
+            compactIfSparse();
+            return last;
+        }
+        if (addedHead < addedTail) {
+            T last = addedElement(--addedTail);
+            added[addedTail] = null;
+            modCount++;
+            return last;
+        }
+        return null;
+    }
+
+    private void clearDeleted(int from, int to) {
+        for (int i = from; i < to; i++) {
+            deleted.clear(i);
+        }
+        deletedCount -= to - from;
+    }
+
+    @Override
+    public int size() {
+        return tail - head - deletedCount + addedTail - addedHead;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int index = search(elements, head, tail, o, false);
+        if (index < tail && compare(elements[index], o) == 0) {
+            return !deleted.get(index);
+        }
+        int addedIndex = search(added, addedHead, addedTail, o, false);
+        return addedIndex < addedTail && compare(added[addedIndex], o) == 0;
+    }
+
+    @Override
+    public boolean add(T t) {
+        // the same check of the element type as in TreeSet
+        compare(t, t);
+        int index = search(elements, head, tail, t, false);
+        if (index < tail && compare(elements[index], t) == 0) {
+            if (!deleted.get(index)) {
+                return false;
+            }
+            deleted.clear(index);
+            deletedCount--;
+            modCount++;
+            return true;
+        }
+        int addedIndex = search(added, addedHead, addedTail, t, false);
+        if (addedIndex < addedTail && compare(added[addedIndex], t) == 0) {
+            return false;
+        }
+        if (addedTail == added.length) {
+            addedIndex -= addedHead;
+            growAdded();
+        }
+        System.arraycopy(added, addedIndex, added, addedIndex + 1, addedTail - addedIndex);
+        added[addedIndex] = t;
+        addedTail++;
+        modCount++;
+        if (addedTail - addedHead > Math.max(MIN_DELTA, DELTA_FACTOR * (int) Math.sqrt(size()))) {
+            merge();
+        } else {
+            compactIfSparse();
+        }
+        return true;
+    }
+
+    private void growAdded() {
+        int count = addedTail - addedHead;
+        Object[] grown = count < added.length / 2 ? added : new Object[added.length * 2];
+        System.arraycopy(added, addedHead, grown, 0, count);
+        if (grown == added) {
+            Arrays.fill(added, count, addedTail, null);
+        }
+        added = grown;
+        addedHead = 0;
+        addedTail = count;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = search(elements, head, tail, o, false);
+        if (index < tail && compare(elements[index], o) == 0) {
+            if (deleted.get(index)) {
+                return false;
+            }
+            removeElement(index);
+            return true;
+        }
+        int addedIndex = search(added, addedHead, addedTail, o, false);
+        if (addedIndex < addedTail && compare(added[addedIndex], o) == 0) {
+            removeAdded(addedIndex);
+            return true;
+        }
+        return false;
+    }
+
+    private void removeElement(int index) {
+        deleted.set(index);
+        deletedCount++;
+        modCount++;
+        compactIfSparse();
+    }
+
+    // Keeps the array proportional to the size, the merges being paid for by the removals before them
+    private void compactIfSparse() {
+        if (deletedCount > (tail - head) / 2) {
+            merge();
+        }
+    }
+
+    private void removeAdded(int index) {
+        System.arraycopy(added, index + 1, added, index, addedTail - index - 1);
+        added[--addedTail] = null;
+        modCount++;
+    }
+
+    // Writes the live elements of the array and the delta into a new array. The position of each delta
+    // element is found by binary search and the runs between them are block copies, so a merge takes
+    // O(d log n) comparisons and one O(n) copy
+    private void merge() {
+        Object[] merged = new Object[size()];
+        int size = 0;
+        int index = head;
+        for (int addedIndex = addedHead; addedIndex < addedTail; addedIndex++) {
+            int end = search(elements, index, tail, added[addedIndex], false);
+            size = copyAlive(index, end, merged, size);
+            merged[size++] = added[addedIndex];
+            index = end;
+        }
+        size = copyAlive(index, tail, merged, size);
+        elements = merged;
+        head = 0;
+        tail = size;
+        deleted = new LeveledBitSet(size);
+        deletedCount = 0;
+        added = new Object[MIN_DELTA];
+        addedHead = 0;
+        addedTail = 0;
+    }
+
+    private int copyAlive(int from, int to, Object[] target, int position) {
+        while (from < to) {
+            int end = deleted.nextSetBit(from);
+            if (end < 0 || end > to) {
+                end = to;
+            }
+            System.arraycopy(elements, from, target, position, end - from);
+            position += end - from;
+            from = end < to ? nextAlive(end) : to;
+        }
+        return position;
+    }
+
+    @Override
+    public void clear() {
+        elements = new Object[0];
+        head = 0;
+        tail = 0;
+        deleted = new LeveledBitSet(0);
+        deletedCount = 0;
+        added = new Object[MIN_DELTA];
+        addedHead = 0;
+        addedTail = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int index = nextAlive(head);
+            private int addedIndex = addedHead;
+            private int expectedModCount = modCount;
+            // the array index of the last element, or -1 if it came from the delta
+            private int lastIndex = -1;
+            private T last;
+            private boolean canRemove = false;
+
+            @Override
+            public boolean hasNext() {
+                return index < tail || addedIndex < addedTail;
+            }
+
+            @Override
+            public T next() {
+                checkModCount();
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                canRemove = true;
+                if (addedIndex == addedTail || index < tail && compare(elements[index], added[addedIndex]) < 0) {
+                    lastIndex = index;
+                    index = nextAlive(index + 1);
+                    last = element(lastIndex);
+                } else {
+                    lastIndex = -1;
+                    last = addedElement(addedIndex++);
+                }
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                checkModCount();
+                if (lastIndex >= 0) {
+                    removeElement(lastIndex);
+                } else {
+                    removeAdded(addedIndex - 1);
+                }
+                // the removal may have compacted the array, so the position is found again by the element
+                index = nextAlive(search(elements, head, tail, last, true));
+                addedIndex = search(added, addedHead, addedTail, last, true);
+                canRemove = false;
+                expectedModCount = modCount;
+            }
+
+            private void checkModCount() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        };
+    }
+
+    @Override
+    public NavigableSet<T> descendingSet() {
+        return new NavigableSetView<>(this, true, null, false, true, null, false, true);
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        return new NavigableSetView<>(this, false, fromElement, fromInclusive, false, toElement, toInclusive, false);
+    }
+
+    @Override
+    public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+        return new NavigableSetView<>(this, true, null, false, false, toElement, inclusive, false);
+    }
+
+    @Override
+    public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+        return new NavigableSetView<>(this, false, fromElement, inclusive, true, null, false, false);
+    }
+
+    @Override
+    public SortedSet<T> subSet(T fromElement, T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> headSet(T toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> tailSet(T fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+}
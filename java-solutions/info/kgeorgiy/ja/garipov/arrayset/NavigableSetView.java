@@ -0,0 +1,294 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.util.*;
+
+// Range and descending view of a mutable navigable set, as the views of TreeSet:
+// every operation is checked against the bounds and passed to the backing set
+class NavigableSetView<T> extends AbstractSet<T> implements NavigableSet<T> {
+    private final NavigableSet<T> set;
+    private final boolean fromStart;
+    private final T low;
+    private final boolean lowInclusive;
+    private final boolean toEnd;
+    private final T high;
+    private final boolean highInclusive;
+    private final boolean descending;
+
+    // Bounds are in the order of the backing set, whatever the direction of the view
+    NavigableSetView(NavigableSet<T> set, boolean fromStart, T low, boolean lowInclusive,
+                     boolean toEnd, T high, boolean highInclusive, boolean descending) {
+        this.set = set;
+        this.fromStart = fromStart;
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.toEnd = toEnd;
+        this.high = high;
+        this.highInclusive = highInclusive;
+        this.descending = descending;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object e1, Object e2) {
+        Comparator<? super T> comparator = set.comparator();
+        if (comparator == null) {
+            return ((Comparable<Object>) e1).compareTo(e2);
+        } else {
+            return comparator.compare((T) e1, (T) e2);
+        }
+    }
+
+    private boolean tooLow(Object e) {
+        if (fromStart) {
+            return false;
+        }
+        int compare = compare(e, low);
+        return compare < 0 || compare == 0 && !lowInclusive;
+    }
+
+    private boolean tooHigh(Object e) {
+        if (toEnd) {
+            return false;
+        }
+        int compare = compare(e, high);
+        return compare > 0 || compare == 0 && !highInclusive;
+    }
+
+    private boolean inRange(Object e) {
+        return !tooLow(e) && !tooHigh(e);
+    }
+
+    // A bound of a nested view may coincide with an exclusive bound of this one
+    private boolean inRange(Object e, boolean inclusive) {
+        if (inclusive) {
+            return inRange(e);
+        }
+        return (fromStart || compare(e, low) >= 0) && (toEnd || compare(e, high) <= 0);
+    }
+
+    // Navigation in the order of the backing set
+
+    private T lowest() {
+        T e = fromStart ? (set.isEmpty() ? null : set.first()) : lowInclusive ? set.ceiling(low) : set.higher(low);
+        return e == null || tooHigh(e) ? null : e;
+    }
+
+    private T highest() {
+        T e = toEnd ? (set.isEmpty() ? null : set.last()) : highInclusive ? set.floor(high) : set.lower(high);
+        return e == null || tooLow(e) ? null : e;
+    }
+
+    private T ceilingInSet(T e, boolean strict) {
+        if (tooLow(e)) {
+            return lowest();
+        }
+        T result = strict ? set.higher(e) : set.ceiling(e);
+        return result == null || tooHigh(result) ? null : result;
+    }
+
+    private T floorInSet(T e, boolean strict) {
+        if (tooHigh(e)) {
+            return highest();
+        }
+        T result = strict ? set.lower(e) : set.floor(e);
+        return result == null || tooLow(result) ? null : result;
+    }
+
+    @Override
+    public T lower(T t) {
+        return descending ? ceilingInSet(t, true) : floorInSet(t, true);
+    }
+
+    @Override
+    public T floor(T t) {
+        return descending ? ceilingInSet(t, false) : floorInSet(t, false);
+    }
+
+    @Override
+    public T ceiling(T t) {
+        return descending ? floorInSet(t, false) : ceilingInSet(t, false);
+    }
+
+    @Override
+    public T higher(T t) {
+        return descending ? floorInSet(t, true) : ceilingInSet(t, true);
+    }
+
+    private T firstOrNull() {
+        return descending ? highest() : lowest();
+    }
+
+    private T lastOrNull() {
+        return descending ? lowest() : highest();
+    }
+
+    @Override
+    public T first() {
+        T first = firstOrNull();
+        if (first == null) {
+            throw new NoSuchElementException();
+        }
+        return first;
+    }
+
+    @Override
+    public T last() {
+        T last = lastOrNull();
+        if (last == null) {
+            throw new NoSuchElementException();
+        }
+        return last;
+    }
+
+    @Override
+    public T pollFirst() {
+        T first = firstOrNull();
+        if (first != null) {
+            set.remove(first);
+        }
+        return first;
+    }
+
+    @Override
+    public T pollLast() {
+        T last = lastOrNull();
+        if (last != null) {
+            set.remove(last);
+        }
+        return last;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return inRange(o) && set.contains(o);
+    }
+
+    @Override
+    public boolean add(T t) {
+        if (!inRange(t)) {
+            throw new IllegalArgumentException("Element out of range");
+        }
+        return set.add(t);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return inRange(o) && set.remove(o);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return firstOrNull() == null;
+    }
+
+    // Linear in the size of the view, as for the views of TreeSet
+    @Override
+    public int size() {
+        int size = 0;
+        for (Iterator<T> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+            size++;
+        }
+        return size;
+    }
+
+    // Each step is a lookup of the next element, so changes of the backing set do not break iteration
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private T next = firstOrNull();
+            private T last = null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = higher(last);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                set.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public NavigableSet<T> descendingSet() {
+        return new NavigableSetView<>(set, fromStart, low, lowInclusive, toEnd, high, highInclusive, !descending);
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return descending ? Collections.reverseOrder(set.comparator()) : set.comparator();
+    }
+
+    // Bounds in the order of the view
+    @Override
+    public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+        if (descending) {
+            return view(toElement, toInclusive, fromElement, fromInclusive);
+        }
+        return view(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    private NavigableSet<T> view(T newLow, boolean newLowInclusive, T newHigh, boolean newHighInclusive) {
+        if (compare(newLow, newHigh) > 0) {
+            throw new IllegalArgumentException();
+        }
+        if (!inRange(newLow, newLowInclusive) || !inRange(newHigh, newHighInclusive)) {
+            throw new IllegalArgumentException("Bound out of range");
+        }
+        return new NavigableSetView<>(set, false, newLow, newLowInclusive, false, newHigh, newHighInclusive, descending);
+    }
+
+    @Override
+    public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+        if (!inRange(toElement, inclusive)) {
+            throw new IllegalArgumentException("Bound out of range");
+        }
+        return descending
+                ? new NavigableSetView<>(set, false, toElement, inclusive, toEnd, high, highInclusive, true)
+                : new NavigableSetView<>(set, fromStart, low, lowInclusive, false, toElement, inclusive, false);
+    }
+
+    @Override
+    public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+        if (!inRange(fromElement, inclusive)) {
+            throw new IllegalArgumentException("Bound out of range");
+        }
+        return descending
+                ? new NavigableSetView<>(set, fromStart, low, lowInclusive, false, fromElement, inclusive, true)
+                : new NavigableSetView<>(set, false, fromElement, inclusive, toEnd, high, highInclusive, false);
+    }
+
+    @Override
+    public SortedSet<T> subSet(T fromElement, T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> headSet(T toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> tailSet(T fromElement) {
+        return tailSet(fromElement, true);
+    }
+}
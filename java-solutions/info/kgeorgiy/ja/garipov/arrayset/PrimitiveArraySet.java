@@ -0,0 +1,192 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.util.*;
+
+// Common part of IntArraySet and LongArraySet: a range [from, to) of a sorted primitive array, possibly reversed.
+// Subclasses search their array with Arrays.binarySearch and pass the result here, so positions
+// are computed in one place and the primitive operations stay unboxed.
+abstract class PrimitiveArraySet<E extends Comparable<E>, S extends PrimitiveArraySet<E, S>>
+        extends AbstractSet<E> implements NavigableSet<E> {
+    protected final int from;
+    protected final int to;
+    protected final boolean reversed;
+
+    protected PrimitiveArraySet(int from, int to, boolean reversed) {
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
+    }
+
+    // Arrays.binarySearch of e over [from, to)
+    protected abstract int search(E e);
+
+    protected abstract E get(int index);
+
+    protected abstract S view(int from, int to, boolean reversed);
+
+    // first index in [from, to) with elements[index] >= e
+    private static int ceilingIndex(int found) {
+        return found >= 0 ? found : -found - 1;
+    }
+
+    // first index in [from, to) with elements[index] > e
+    private static int higherIndex(int found) {
+        return found >= 0 ? found + 1 : -found - 1;
+    }
+
+    // In a descending view lower is the next greater element of the array, and so on
+    protected final int lowerIndex(int found) {
+        return reversed ? higherIndex(found) : ceilingIndex(found) - 1;
+    }
+
+    protected final int floorIndex(int found) {
+        return reversed ? ceilingIndex(found) : higherIndex(found) - 1;
+    }
+
+    protected final int ceilingIndexInOrder(int found) {
+        return reversed ? higherIndex(found) - 1 : ceilingIndex(found);
+    }
+
+    protected final int higherIndexInOrder(int found) {
+        return reversed ? ceilingIndex(found) - 1 : higherIndex(found);
+    }
+
+    protected final boolean checkIndexInBounds(int index) {
+        return from <= index && index < to;
+    }
+
+    protected final int firstIndex() {
+        if (size() == 0) {
+            throw new NoSuchElementException(getClass().getSimpleName() + " is empty");
+        }
+        return reversed ? to - 1 : from;
+    }
+
+    protected final int lastIndex() {
+        if (size() == 0) {
+            throw new NoSuchElementException(getClass().getSimpleName() + " is empty");
+        }
+        return reversed ? from : to - 1;
+    }
+
+    private E getInBounds(int index) {
+        return checkIndexInBounds(index) ? get(index) : null;
+    }
+
+    @Override
+    public E lower(E e) {
+        return getInBounds(lowerIndex(search(e)));
+    }
+
+    @Override
+    public E floor(E e) {
+        return getInBounds(floorIndex(search(e)));
+    }
+
+    @Override
+    public E ceiling(E e) {
+        return getInBounds(ceilingIndexInOrder(search(e)));
+    }
+
+    @Override
+    public E higher(E e) {
+        return getInBounds(higherIndexInOrder(search(e)));
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E first() {
+        return get(firstIndex());
+    }
+
+    @Override
+    public E last() {
+        return get(lastIndex());
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public S descendingSet() {
+        return view(from, to, !reversed);
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return reversed ? Collections.reverseOrder() : null;
+    }
+
+    // Array indices of the elements after e, or from e on if inclusive, in the set order
+    private static int tailStart(int found, boolean inclusive) {
+        return inclusive ? ceilingIndex(found) : higherIndex(found);
+    }
+
+    private static int headEnd(int found, boolean inclusive) {
+        return inclusive ? higherIndex(found) : ceilingIndex(found);
+    }
+
+    private S view(int from, int to) {
+        return view(from, Math.max(from, to), reversed);
+    }
+
+    // The elements are found already, and fromElement is checked not to follow toElement in the set order
+    protected final S subSetFound(int fromFound, boolean fromInclusive, int toFound, boolean toInclusive) {
+        return reversed
+                ? view(tailStart(toFound, toInclusive), headEnd(fromFound, fromInclusive))
+                : view(tailStart(fromFound, fromInclusive), headEnd(toFound, toInclusive));
+    }
+
+    protected final S headSetFound(int found, boolean inclusive) {
+        return reversed ? view(tailStart(found, inclusive), to) : view(from, headEnd(found, inclusive));
+    }
+
+    protected final S tailSetFound(int found, boolean inclusive) {
+        return reversed ? view(from, headEnd(found, inclusive)) : view(tailStart(found, inclusive), to);
+    }
+
+    @Override
+    public S subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        int compare = fromElement.compareTo(toElement);
+        if (reversed ? compare < 0 : compare > 0) {
+            throw new IllegalArgumentException();
+        }
+        return subSetFound(search(fromElement), fromInclusive, search(toElement), toInclusive);
+    }
+
+    @Override
+    public S headSet(E toElement, boolean inclusive) {
+        return headSetFound(search(toElement), inclusive);
+    }
+
+    @Override
+    public S tailSet(E fromElement, boolean inclusive) {
+        return tailSetFound(search(fromElement), inclusive);
+    }
+
+    @Override
+    public S subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public S headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public S tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+}
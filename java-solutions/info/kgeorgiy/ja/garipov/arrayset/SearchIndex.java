@@ -0,0 +1,76 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Read-optimized index over a sorted list: every BLOCK-th element is stored in Eytzinger (BFS) order,
+// so the top levels of the search stay in a few cache lines and the descent has no data-dependent
+// branches. The descent narrows the search to one block of the list, which is then searched binary.
+class SearchIndex<T> implements SortedSearch<T> {
+    private static final int BLOCK = 16;
+
+    private final List<T> elements;
+    private final Comparator<? super T> comparator;
+    // samples in Eytzinger order, 1-based; rank[k] is the number of the sample at node k
+    private final Object[] tree;
+    private final int[] rank;
+
+    // The elements must be sorted in the order of the comparator, null meaning the natural order
+    SearchIndex(List<T> elements, Comparator<? super T> comparator) {
+        this.elements = elements;
+        this.comparator = comparator;
+        int samples = (elements.size() + BLOCK - 1) / BLOCK;
+        this.tree = new Object[samples + 1];
+        this.rank = new int[samples + 1];
+        fill(1, 0);
+    }
+
+    // in-order traversal of the implicit tree assigns the samples in sorted order
+    private int fill(int node, int sample) {
+        if (node < tree.length) {
+            sample = fill(2 * node, sample);
+            tree[node] = elements.get(sample * BLOCK);
+            rank[node] = sample++;
+            sample = fill(2 * node + 1, sample);
+        }
+        return sample;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(T e1, T e2) {
+        return comparator == null ? ((Comparable<T>) e1).compareTo(e2) : comparator.compare(e1, e2);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int search(T key) {
+        int node = 1;
+        while (node < tree.length) {
+            node = 2 * node + (compare((T) tree[node], key) < 0 ? 1 : 0);
+        }
+        // the last left turn leads to the first sample that fits, none if the descent always went right
+        node >>= Integer.numberOfTrailingZeros(~node) + 1;
+        int low;
+        int high;
+        if (node == 0) {
+            low = tree.length == 1 ? 0 : (tree.length - 2) * BLOCK + 1;
+            high = elements.size();
+        } else {
+            high = rank[node] * BLOCK;
+            low = rank[node] == 0 ? 0 : high - BLOCK + 1;
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int compare = compare(elements.get(middle), key);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle;
+            } else {
+                return middle;
+            }
+        }
+        // the block ends before the sample that stopped the descent, which may be the key itself
+        return node != 0 && low == rank[node] * BLOCK && compare((T) tree[node], key) == 0 ? low : -low - 1;
+    }
+}
@@ -0,0 +1,9 @@
+package info.kgeorgiy.ja.garipov.arrayset;
+
+// Lookup over the whole backing list of an ArraySet, in the order the list is sorted in
+interface SortedSearch<T> {
+    // Same result as Collections.binarySearch: the index of key if it is present,
+    // otherwise -insertion - 1, where insertion is the index of the first element greater than key, or the size.
+    // Implementations tell an exact match from their own comparisons, without getting the element
+    int search(T key);
+}
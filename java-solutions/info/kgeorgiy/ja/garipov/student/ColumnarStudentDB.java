@@ -0,0 +1,259 @@
+package info.kgeorgiy.ja.garipov.student;
+
+import info.kgeorgiy.java.advanced.student.Group;
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+
+// StudentDB that answers queries about a StudentTable from its columns, comparing codes and ranks
+// instead of strings and creating students only for the results. Other collections are scanned as in StudentDB,
+// and group statistics of a table are computed from the columns by StudentStatistics anyway
+public class ColumnarStudentDB extends StudentDB {
+    public ColumnarStudentDB() {
+    }
+
+    // The parallel threshold applies to the collections other than StudentTable
+    public ColumnarStudentDB(final int parallelThreshold) {
+        super(parallelThreshold);
+    }
+
+    private static StudentTable table(final Collection<Student> students) {
+        return students instanceof StudentTable ? (StudentTable) students : null;
+    }
+
+    private static <T> List<T> mapRows(final int[] rows, final IntFunction<T> getter) {
+        final List<T> result = new ArrayList<>(rows.length);
+        for (final int row : rows) {
+            result.add(getter.apply(row));
+        }
+        return result;
+    }
+
+    private static int[] allRows(final StudentTable table) {
+        final int[] rows = new int[table.size()];
+        Arrays.setAll(rows, i -> i);
+        return rows;
+    }
+
+    private static String firstName(final StudentTable table, final int row) {
+        return table.firstNameTable[table.firstNames[row]];
+    }
+
+    private static String lastName(final StudentTable table, final int row) {
+        return table.lastNameTable[table.lastNames[row]];
+    }
+
+    private static String fullName(final StudentTable table, final int row) {
+        return firstName(table, row) + " " + lastName(table, row);
+    }
+
+    @Override
+    public List<String> getFirstNames(final List<Student> students) {
+        final StudentTable table = table(students);
+        return table == null ? super.getFirstNames(students) : mapRows(allRows(table), row -> firstName(table, row));
+    }
+
+    @Override
+    public List<String> getLastNames(final List<Student> students) {
+        final StudentTable table = table(students);
+        return table == null ? super.getLastNames(students) : mapRows(allRows(table), row -> lastName(table, row));
+    }
+
+    @Override
+    public List<GroupName> getGroups(final List<Student> students) {
+        final StudentTable table = table(students);
+        return table == null ? super.getGroups(students)
+                : mapRows(allRows(table), row -> StudentTable.GROUPS[table.groups[row]]);
+    }
+
+    @Override
+    public List<String> getFullNames(final List<Student> students) {
+        final StudentTable table = table(students);
+        return table == null ? super.getFullNames(students) : mapRows(allRows(table), row -> fullName(table, row));
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(final List<Student> students) {
+        final StudentTable table = table(students);
+        return table == null ? super.getDistinctFirstNames(students)
+                : new TreeSet<>(Arrays.asList(table.firstNameTable));
+    }
+
+    @Override
+    public String getMaxStudentFirstName(final List<Student> students) {
+        final StudentTable table = table(students);
+        if (table == null) {
+            return super.getMaxStudentFirstName(students);
+        }
+        int max = -1;
+        for (int row = 0; row < table.size(); row++) {
+            if (max == -1 || table.ids[row] > table.ids[max]) {
+                max = row;
+            }
+        }
+        return max == -1 ? "" : firstName(table, max);
+    }
+
+    // Rows by id, equal ids in the order of rows, as a stable sort leaves them
+    private static int[] orderById(final StudentTable table) {
+        final long[] keys = new long[table.size()];
+        for (int row = 0; row < keys.length; row++) {
+            keys[row] = (long) table.ids[row] << 32 | row;
+        }
+        Arrays.sort(keys);
+        final int[] rows = new int[keys.length];
+        Arrays.setAll(rows, i -> (int) keys[i]);
+        return rows;
+    }
+
+    // STUDENT_BY_NAME_ORDER as a radix sort of the rows by id: stable by first name, then by last name
+    private static int[] orderByName(final StudentTable table) {
+        final int[] byFirstName = sortByRankDescending(orderById(table), table.firstNames, table.firstNameRanks);
+        return sortByRankDescending(byFirstName, table.lastNames, table.lastNameRanks);
+    }
+
+    private static int[] sortByRankDescending(final int[] rows, final int[] codes, final int[] ranks) {
+        final int[] starts = new int[ranks.length + 1];
+        for (final int row : rows) {
+            starts[ranks.length - ranks[codes[row]]]++;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+        final int[] sorted = new int[rows.length];
+        for (final int row : rows) {
+            sorted[starts[ranks.length - 1 - ranks[codes[row]]]++] = row;
+        }
+        return sorted;
+    }
+
+    @Override
+    public List<Student> sortStudentsById(final Collection<Student> students) {
+        final StudentTable table = table(students);
+        return table == null ? super.sortStudentsById(students) : mapRows(orderById(table), table::get);
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(final Collection<Student> students) {
+        final StudentTable table = table(students);
+        return table == null ? super.sortStudentsByName(students) : mapRows(orderByName(table), table::get);
+    }
+
+    private static List<Student> findRows(final StudentTable table, final int[] column, final int code) {
+        final List<Student> result = new ArrayList<>();
+        for (int row = 0; row < table.size(); row++) {
+            if (column[row] == code) {
+                result.add(table.get(row));
+            }
+        }
+        result.sort(STUDENT_BY_NAME_ORDER);
+        return result;
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(final Collection<Student> students, final String name) {
+        final StudentTable table = table(students);
+        return table == null ? super.findStudentsByFirstName(students, name)
+                : findRows(table, table.firstNames, table.firstNameCode(name));
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(final Collection<Student> students, final String name) {
+        final StudentTable table = table(students);
+        return table == null ? super.findStudentsByLastName(students, name)
+                : findRows(table, table.lastNames, table.lastNameCode(name));
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(final Collection<Student> students, final GroupName group) {
+        final StudentTable table = table(students);
+        return table == null ? super.findStudentsByGroup(students, group)
+                : findRows(table, table.groups, group == null ? -1 : group.ordinal());
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(final Collection<Student> students, final GroupName group) {
+        final StudentTable table = table(students);
+        if (table == null) {
+            return super.findStudentNamesByGroup(students, group);
+        }
+        final Map<String, String> result = new HashMap<>();
+        for (int row = 0; row < table.size(); row++) {
+            if (group != null && table.groups[row] == group.ordinal()) {
+                result.merge(lastName(table, row), firstName(table, row), BinaryOperator.minBy(Comparator.naturalOrder()));
+            }
+        }
+        return result;
+    }
+
+    private static List<Group> groupRows(final StudentTable table, final int[] rows) {
+        final List<List<Student>> groups = new ArrayList<>(Collections.nCopies(StudentTable.GROUPS.length, null));
+        for (final int row : rows) {
+            final int group = table.groups[row];
+            if (groups.get(group) == null) {
+                groups.set(group, new ArrayList<>());
+            }
+            groups.get(group).add(table.get(row));
+        }
+        final List<Group> result = new ArrayList<>();
+        for (int group = 0; group < groups.size(); group++) {
+            if (groups.get(group) != null) {
+                result.add(new Group(StudentTable.GROUPS[group], groups.get(group)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Group> getGroupsByName(final Collection<Student> students) {
+        final StudentTable table = table(students);
+        return table == null ? super.getGroupsByName(students) : groupRows(table, orderByName(table));
+    }
+
+    @Override
+    public List<Group> getGroupsById(final Collection<Student> students) {
+        final StudentTable table = table(students);
+        return table == null ? super.getGroupsById(students) : groupRows(table, orderById(table));
+    }
+
+    private static <T> List<T> getByIndices(final Collection<Student> students, final int[] indices,
+                                            final IntFunction<T> getter) {
+        final List<T> result = new ArrayList<>(indices.length);
+        for (final int index : indices) {
+            Objects.checkIndex(index, students.size());
+            result.add(getter.apply(index));
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getFirstNames(final Collection<Student> students, final int[] indices) {
+        final StudentTable table = table(students);
+        return table == null ? super.getFirstNames(students, indices)
+                : getByIndices(table, indices, row -> firstName(table, row));
+    }
+
+    @Override
+    public List<String> getLastNames(final Collection<Student> students, final int[] indices) {
+        final StudentTable table = table(students);
+        return table == null ? super.getLastNames(students, indices)
+                : getByIndices(table, indices, row -> lastName(table, row));
+    }
+
+    @Override
+    public List<GroupName> getGroups(final Collection<Student> students, final int[] indices) {
+        final StudentTable table = table(students);
+        return table == null ? super.getGroups(students, indices)
+                : getByIndices(table, indices, row -> StudentTable.GROUPS[table.groups[row]]);
+    }
+
+    @Override
+    public List<String> getFullNames(final Collection<Student> students, final int[] indices) {
+        final StudentTable table = table(students);
+        return table == null ? super.getFullNames(students, indices)
+                : getByIndices(table, indices, row -> fullName(table, row));
+    }
+}
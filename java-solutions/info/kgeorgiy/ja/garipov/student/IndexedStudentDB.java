@@ -0,0 +1,65 @@
+package info.kgeorgiy.ja.garipov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// StudentDB with hash indexes over one collection of students, which must not change afterwards.
+// Posting lists are presorted by STUDENT_BY_NAME_ORDER, so lookups in that collection take O(result);
+// any other collection is scanned as in StudentDB
+public class IndexedStudentDB extends StudentDB {
+    private final Collection<Student> students;
+    private final Map<String, List<Student>> byFirstName;
+    private final Map<String, List<Student>> byLastName;
+    private final Map<GroupName, List<Student>> byGroup;
+
+    public IndexedStudentDB(final Collection<Student> students) {
+        this(students, Integer.MAX_VALUE);
+    }
+
+    public IndexedStudentDB(final Collection<Student> students, final int parallelThreshold) {
+        super(parallelThreshold);
+        this.students = students;
+        final List<Student> sorted = sortStudentsByName(students);
+        byFirstName = index(sorted, Student::getFirstName);
+        byLastName = index(sorted, Student::getLastName);
+        byGroup = index(sorted, Student::getGroup);
+    }
+
+    // groupingBy keeps the order of the students in every list
+    private static <T> Map<T, List<Student>> index(final List<Student> sorted, final Function<Student, T> getter) {
+        return sorted.stream().collect(Collectors.groupingBy(getter, HashMap::new, Collectors.toList()));
+    }
+
+    private boolean isIndexed(final Collection<Student> students) {
+        return students == this.students;
+    }
+
+    private static <T> List<Student> find(final Map<T, List<Student>> index, final T value) {
+        return new ArrayList<>(index.getOrDefault(value, List.of()));
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(final Collection<Student> students, final String name) {
+        return isIndexed(students) ? find(byFirstName, name) : super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(final Collection<Student> students, final String name) {
+        return isIndexed(students) ? find(byLastName, name) : super.findStudentsByLastName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(final Collection<Student> students, final GroupName group) {
+        return isIndexed(students) ? find(byGroup, group) : super.findStudentsByGroup(students, group);
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(final Collection<Student> students, final GroupName group) {
+        return super.findStudentNamesByGroup(isIndexed(students) ? byGroup.getOrDefault(group, List.of()) : students,
+                group);
+    }
+}
@@ -9,19 +9,47 @@ import java.util.stream.Stream;
 
 public class StudentDB implements AdvancedQuery {
 
-    private static final Comparator<Student> STUDENT_BY_NAME_ORDER = Comparator.comparing(Student::getLastName,
+    static final Comparator<Student> STUDENT_BY_NAME_ORDER = Comparator.comparing(Student::getLastName,
             Comparator.reverseOrder()).thenComparing(Student::getFirstName, Comparator.reverseOrder()).
             thenComparing(Student::getId);
 
     private static final String EMPTY_STRING = "";
 
+    // collections of at least this size are processed by parallel streams
+    private final int parallelThreshold;
+
+    public StudentDB() {
+        this(Integer.MAX_VALUE);
+    }
+
+    // Results are the same in both modes, including the order of equal students and ties of the maxima
+    public StudentDB(final int parallelThreshold) {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("Negative parallel threshold: " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    boolean isParallel(final Collection<?> collection) {
+        return collection.size() >= parallelThreshold;
+    }
+
+    // A parallel stream of an unordered collection may be sorted unstably, so it is copied to a list,
+    // which keeps the iteration order a sequential stream would have
+    private <T> Stream<T> stream(final Collection<T> collection) {
+        if (!isParallel(collection)) {
+            return collection.stream();
+        }
+        return (collection instanceof List ? collection : new ArrayList<>(collection)).parallelStream();
+    }
+
     // :NOTE: Обобщить
     private static <T, U> Predicate<U> FieldEqualsPredicate(final T fieldValue, final Function<U, T> getField) {
         return (obj -> getField.apply(obj).equals(fieldValue));
     }
 
-    private static <T> List<T> mapToList(final List<Student> students, final Function<Student, T> getter) {
-        return students.stream().map(getter).collect(Collectors.toList());
+    private <T> List<T> mapToList(final List<Student> students, final Function<Student, T> getter) {
+        return stream(students).map(getter).collect(Collectors.toList());
     }
 
     @Override
@@ -51,17 +79,17 @@ public class StudentDB implements AdvancedQuery {
 
     @Override
     public Set<String> getDistinctFirstNames(final List<Student> students) {
-        return students.stream().map(Student::getFirstName).collect(Collectors.toCollection(TreeSet::new));
+        return stream(students).map(Student::getFirstName).collect(Collectors.toCollection(TreeSet::new));
     }
 
     @Override
     public String getMaxStudentFirstName(final List<Student> students) {
-        return students.stream().max(Student::compareTo).map(Student::getFirstName).orElse(EMPTY_STRING);
+        return stream(students).max(Student::compareTo).map(Student::getFirstName).orElse(EMPTY_STRING);
     }
 
-    private static List<Student> sortStudents(final Collection<Student> students,
+    private List<Student> sortStudents(final Collection<Student> students,
                                               final Comparator<? super Student> comparator) {
-        return students.stream().sorted(comparator).collect(Collectors.toList());
+        return stream(students).sorted(comparator).collect(Collectors.toList());
     }
 
     @Override
@@ -76,7 +104,7 @@ public class StudentDB implements AdvancedQuery {
 
     private <T> Stream<Student> filterStudentsByFieldValue(final Collection<Student> students,
                                                            final Function<Student, T> getter, final T filteringValue) {
-        return students.stream().filter(FieldEqualsPredicate(filteringValue, getter));
+        return stream(students).filter(FieldEqualsPredicate(filteringValue, getter));
     }
 
     private <T> List<Student> findStudentByFieldValue(final Collection<Student> students,
@@ -110,8 +138,8 @@ public class StudentDB implements AdvancedQuery {
                 ));
     }
 
-    private static List<Group> getGroupsBy(final Collection<Student> students, final Comparator<? super Student> comparator) {
-        return students.stream().sorted(comparator).
+    private List<Group> getGroupsBy(final Collection<Student> students, final Comparator<? super Student> comparator) {
+        return stream(students).sorted(comparator).
                 collect(Collectors.groupingBy(
                         Student::getGroup,
                         Collectors.toList()))
@@ -128,43 +156,19 @@ public class StudentDB implements AdvancedQuery {
     public List<Group> getGroupsById(final Collection<Student> students) {
         return getGroupsBy(students, Student::compareTo);
     }
-    // :NOTE: Обобщить
-    private static <T extends Comparable<? super T>, U, S> T getAbstractMax(
-            final Collection<S> collection, final Function<S, T> groupingMapping,
-            final Function<S, U> valueExtractor, final Comparator<Map.Entry<T, Long>> sizeComparator,
-            final T orElseValue
-    ) {
-        return collection.stream()
-                .collect(Collectors.groupingBy(
-                        groupingMapping,
-                        Collectors.mapping(
-                                valueExtractor,
-                                Collectors.collectingAndThen(Collectors.toCollection(HashSet::new), set -> (long) set.size()))
-                )).entrySet().stream().max(
-                        Map.Entry.<T, Long>comparingByValue().thenComparing(sizeComparator)
-                ).map(Map.Entry::getKey).orElse(orElseValue);
-    }
-
-    private static <U> GroupName getLargestAbstractGroup(final Collection<Student> students, final Function<Student, U> valueExtractor,
-                                                         final Comparator<Map.Entry<GroupName, Long>> isSizesEqualComparator) {
-        return getAbstractMax(students, Student::getGroup, valueExtractor, isSizesEqualComparator, null);
-    }
-
     @Override
     public GroupName getLargestGroup(final Collection<Student> students) {
-        return getLargestAbstractGroup(students, Function.identity(), Map.Entry.comparingByKey());
+        return StudentStatistics.of(students, isParallel(students)).getLargestGroup();
     }
 
     @Override
     public GroupName getLargestGroupFirstName(final Collection<Student> students) {
-        return getLargestAbstractGroup(students, Student::getFirstName,
-                Map.Entry.<GroupName, Long>comparingByKey().reversed());
+        return StudentStatistics.of(students, isParallel(students)).getLargestGroupFirstName();
     }
 
     @Override
     public String getMostPopularName(final Collection<Student> students) {
-        return getAbstractMax(students, Student::getFirstName, Student::getGroup, Map.Entry.comparingByKey(),
-                EMPTY_STRING);
+        return StudentStatistics.of(students, isParallel(students)).getMostPopularName();
     }
 
     private static <T> List<T> getByIndices(final Collection<Student> students, final int[] indices, final Function<Student, T> valueExtractor) {
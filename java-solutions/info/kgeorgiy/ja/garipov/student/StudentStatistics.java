@@ -0,0 +1,162 @@
+package info.kgeorgiy.ja.garipov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Group and name statistics of a collection of students, computed in one pass with primitive counters:
+// the number of distinct students in every group and the distinct first names of every group,
+// as bit sets of dictionary codes. Compute it once to answer all the related queries about a collection
+public final class StudentStatistics {
+    private static final GroupName[] GROUPS = StudentTable.GROUPS;
+
+    private final GroupName largestGroup;
+    private final GroupName largestGroupFirstName;
+    private final String mostPopularName;
+
+    private StudentStatistics(final int[] counts, final BitSet[] names, final String[] nameTable) {
+        // ties go to the greatest group
+        int largest = -1;
+        for (int group = 0; group < counts.length; group++) {
+            if (counts[group] > 0 && (largest == -1 || counts[group] >= counts[largest])) {
+                largest = group;
+            }
+        }
+        largestGroup = largest == -1 ? null : GROUPS[largest];
+
+        // ties go to the least group
+        largest = -1;
+        for (int group = 0; group < names.length; group++) {
+            if (names[group] != null && (largest == -1 || names[group].cardinality() > names[largest].cardinality())) {
+                largest = group;
+            }
+        }
+        largestGroupFirstName = largest == -1 ? null : GROUPS[largest];
+
+        final int[] groupCounts = new int[nameTable.length];
+        for (final BitSet groupNames : names) {
+            if (groupNames != null) {
+                groupNames.stream().forEach(name -> groupCounts[name]++);
+            }
+        }
+        // ties go to the greatest name
+        int popular = -1;
+        for (int name = 0; name < groupCounts.length; name++) {
+            if (popular == -1 || groupCounts[name] > groupCounts[popular]
+                    || groupCounts[name] == groupCounts[popular] && nameTable[name].compareTo(nameTable[popular]) > 0) {
+                popular = name;
+            }
+        }
+        mostPopularName = popular == -1 ? "" : nameTable[popular];
+    }
+
+    public static StudentStatistics of(final Collection<Student> students) {
+        return of(students, false);
+    }
+
+    // In parallel, partial counters and bit sets of the stream parts are merged,
+    // while name codes and the filter of duplicates are shared
+    public static StudentStatistics of(final Collection<Student> students, final boolean parallel) {
+        if (students instanceof StudentTable) {
+            return of((StudentTable) students);
+        }
+        final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        final AtomicInteger nextCode = new AtomicInteger();
+        // students of a HashSet or LinkedHashSet are distinct by equals anyway, other sets may use identity or a comparator
+        final DistinctFilter distinct = students instanceof HashSet ? null : new DistinctFilter(students.size());
+        final Accumulator total = (parallel ? students.parallelStream() : students.stream()).collect(
+                Accumulator::new,
+                (accumulator, student) -> accumulator.add(student,
+                        codes.computeIfAbsent(student.getFirstName(), name -> nextCode.getAndIncrement()),
+                        distinct == null || distinct.add(student)),
+                Accumulator::merge
+        );
+        final String[] nameTable = new String[codes.size()];
+        codes.forEach((name, code) -> nameTable[code] = name);
+        return new StudentStatistics(total.counts, total.names, nameTable);
+    }
+
+    private static class Accumulator {
+        private final int[] counts = new int[GROUPS.length];
+        private final BitSet[] names = new BitSet[GROUPS.length];
+
+        void add(final Student student, final int name, final boolean isDistinct) {
+            final int group = student.getGroup().ordinal();
+            if (isDistinct) {
+                counts[group]++;
+            }
+            if (names[group] == null) {
+                names[group] = new BitSet();
+            }
+            names[group].set(name);
+        }
+
+        void merge(final Accumulator other) {
+            for (int group = 0; group < GROUPS.length; group++) {
+                counts[group] += other.counts[group];
+                if (names[group] == null) {
+                    names[group] = other.names[group];
+                } else if (other.names[group] != null) {
+                    names[group].or(other.names[group]);
+                }
+            }
+        }
+    }
+
+    // The table already has name codes and knows its duplicate rows
+    static StudentStatistics of(final StudentTable table) {
+        final int[] counts = new int[GROUPS.length];
+        final BitSet[] names = new BitSet[GROUPS.length];
+        for (int row = 0; row < table.size(); row++) {
+            final int group = table.groups[row];
+            if (!table.duplicates.get(row)) {
+                counts[group]++;
+            }
+            if (names[group] == null) {
+                names[group] = new BitSet(table.firstNameTable.length);
+            }
+            names[group].set(table.firstNames[row]);
+        }
+        return new StudentStatistics(counts, names, table.firstNameTable);
+    }
+
+    // Open addressing set of students, which takes a single array and is filled by compare-and-set,
+    // so parallel threads share it. Equal students have equal ids, so the cheap id is hashed
+    private static class DistinctFilter {
+        private final AtomicReferenceArray<Student> slots;
+        private final int shift;
+
+        DistinctFilter(final int size) {
+            slots = new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(size, 1)) * 4);
+            shift = Integer.numberOfLeadingZeros(slots.length()) + 1;
+        }
+
+        boolean add(final Student element) {
+            final int mask = slots.length() - 1;
+            int slot = element.getId() * 0x9E3779B9 >>> shift;
+            while (!slots.compareAndSet(slot, null, element)) {
+                if (slots.get(slot).equals(element)) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return true;
+        }
+    }
+
+    public GroupName getLargestGroup() {
+        return largestGroup;
+    }
+
+    public GroupName getLargestGroupFirstName() {
+        return largestGroupFirstName;
+    }
+
+    public String getMostPopularName() {
+        return mostPopularName;
+    }
+}
@@ -0,0 +1,116 @@
+package info.kgeorgiy.ja.garipov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+
+// Columnar list of students: ids, and codes of first names, last names and groups. Names are codes
+// into tables of distinct values, groups are GroupName ordinals. Students are created on access,
+// and ColumnarStudentDB answers queries about a table from the columns
+public class StudentTable extends AbstractList<Student> implements RandomAccess {
+    static final GroupName[] GROUPS = GroupName.values();
+
+    final int[] ids;
+    final int[] firstNames;
+    final int[] lastNames;
+    final int[] groups;
+    final String[] firstNameTable;
+    final String[] lastNameTable;
+    // position of every code in its table sorted in the natural order
+    final int[] firstNameRanks;
+    final int[] lastNameRanks;
+    // rows equal to an earlier row
+    final BitSet duplicates;
+    private final Map<String, Integer> firstNameCodes = new HashMap<>();
+    private final Map<String, Integer> lastNameCodes = new HashMap<>();
+
+    public StudentTable(final Collection<Student> students) {
+        final int size = students.size();
+        ids = new int[size];
+        firstNames = new int[size];
+        lastNames = new int[size];
+        groups = new int[size];
+        final List<String> firstNameList = new ArrayList<>();
+        final List<String> lastNameList = new ArrayList<>();
+        int row = 0;
+        for (final Student student : students) {
+            ids[row] = student.getId();
+            firstNames[row] = encode(student.getFirstName(), firstNameCodes, firstNameList);
+            lastNames[row] = encode(student.getLastName(), lastNameCodes, lastNameList);
+            groups[row] = student.getGroup().ordinal();
+            row++;
+        }
+        firstNameTable = firstNameList.toArray(new String[0]);
+        lastNameTable = lastNameList.toArray(new String[0]);
+        firstNameRanks = ranks(firstNameTable);
+        lastNameRanks = ranks(lastNameTable);
+        duplicates = duplicates();
+    }
+
+    private static int encode(final String value, final Map<String, Integer> codes, final List<String> table) {
+        return codes.computeIfAbsent(value, v -> {
+            table.add(v);
+            return table.size() - 1;
+        });
+    }
+
+    private static int[] ranks(final String[] table) {
+        final Integer[] order = new Integer[table.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(code -> table[code]));
+        final int[] ranks = new int[table.length];
+        for (int rank = 0; rank < order.length; rank++) {
+            ranks[order[rank]] = rank;
+        }
+        return ranks;
+    }
+
+    // Open addressing over row numbers, so that no students are created
+    private BitSet duplicates() {
+        final BitSet duplicates = new BitSet(size());
+        final int[] slots = new int[Integer.highestOneBit(Math.max(size(), 1)) * 4];
+        final int mask = slots.length - 1;
+        for (int row = 0; row < size(); row++) {
+            int slot = hash(row) & mask;
+            while (slots[slot] != 0 && !equal(slots[slot] - 1, row)) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == 0) {
+                slots[slot] = row + 1;
+            } else {
+                duplicates.set(row);
+            }
+        }
+        return duplicates;
+    }
+
+    private int hash(final int row) {
+        final int hash = ((ids[row] * 31 + firstNames[row]) * 31 + lastNames[row]) * 31 + groups[row];
+        return (hash ^ hash >>> 16) * 0x9E3779B9;
+    }
+
+    private boolean equal(final int row1, final int row2) {
+        return ids[row1] == ids[row2] && firstNames[row1] == firstNames[row2]
+                && lastNames[row1] == lastNames[row2] && groups[row1] == groups[row2];
+    }
+
+    // Code of the value, or -1 if no student has it
+    int firstNameCode(final String firstName) {
+        return firstNameCodes.getOrDefault(firstName, -1);
+    }
+
+    int lastNameCode(final String lastName) {
+        return lastNameCodes.getOrDefault(lastName, -1);
+    }
+
+    @Override
+    public Student get(final int row) {
+        return new Student(ids[row], firstNameTable[firstNames[row]], lastNameTable[lastNames[row]], GROUPS[groups[row]]);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+}
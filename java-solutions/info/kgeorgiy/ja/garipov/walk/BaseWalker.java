@@ -1,14 +1,34 @@
 package info.kgeorgiy.ja.garipov.walk;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class BaseWalker {
     private final int recursionDepth;
+    private final WalkOptions options;
+
+    public static void run(String[] args, Function<WalkOptions, ? extends BaseWalker> walkerFactory) {
+        WalkOptions options = new WalkOptions();
+        String[] arguments = args;
+        if (args != null) {
+            try {
+                arguments = options.parse(args);
+            } catch (IllegalArgumentException exc) {
+                System.err.println("Wrong arguments: " + exc.getMessage());
+                return;
+            }
+        }
+        walkerFactory.apply(options).walk(arguments);
+    }
 
     public void walk(String[] args) {
         if (args == null || args.length != 2 || (args[0] == null || args[1] == null)) {
@@ -43,9 +63,52 @@ public class BaseWalker {
             }
         }
 
+        Path indexFilePath = null;
+        HashIndex index = null;
+        if (options.getIndexFile() != null) {
+            try {
+                indexFilePath = Path.of(options.getIndexFile());
+            } catch (InvalidPathException exc) {
+                System.err.println("Invalid index path: " + exc.getMessage());
+                return;
+            }
+            try {
+                index = HashIndex.load(indexFilePath, options.getDigestName(),
+                        Hashers.get(options.getHasher()).get().digestLength());
+            } catch (IOException exc) {
+                System.err.println("Index error, rehashing everything: " + exc.getMessage());
+                index = HashIndex.empty(options.getDigestName());
+            }
+        }
+
+        Path duplicatesFilePath = null;
+        if (options.getDuplicatesFile() != null) {
+            try {
+                duplicatesFilePath = Path.of(options.getDuplicatesFile());
+            } catch (InvalidPathException exc) {
+                System.err.println("Invalid duplicates report path: " + exc.getMessage());
+                return;
+            }
+        }
+
+        WalkContext context = new WalkContext()
+                .setIndex(index)
+                .setDeduplicator(options.isDeduplicate() ? new LinkDeduplicator() : null)
+                .setDuplicates(duplicatesFilePath != null ? new DuplicateReport() : null)
+                .setArchives(options.isArchives())
+                .setStatistics(options.isStatistics() ? new WalkStatistics() : null);
+
+        ForkJoinPool treePool = options.getTreeChunkSize() > 0 && options.getThreads() > 1
+                ? new ForkJoinPool(options.getThreads()) : null;
+        ForkJoinPool walkPool = options.getWalkThreads() > 0 ? new ForkJoinPool(options.getWalkThreads()) : null;
+        ForkJoinFileTreeWalker treeWalker = walkPool != null ? new ForkJoinFileTreeWalker(walkPool, recursionDepth) : null;
+        HashWatcher watcher = null;
         try (BufferedReader input = Files.newBufferedReader(inputFilePath, StandardCharsets.UTF_8)) {
-            try (BufferedWriter output = Files.newBufferedWriter(outputFilePath, StandardCharsets.UTF_8)) {
-                HashingFileVisitor fileVisitor = new HashingFileVisitor(new PJWHasher(), output);
+            if (options.isWatch()) {
+                watcher = new HashWatcher(recursionDepth, options.getDebounceMillis());
+            }
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(outputFilePath));
+                 HashingFileVisitor fileVisitor = createFileVisitor(output, context, treePool, false)) {
                 String fileName;
                 while (true) {
                     try {
@@ -64,7 +127,7 @@ public class BaseWalker {
                     } catch (InvalidPathException exc) {
                         System.err.println("Invalid path in input: " + exc.getMessage());
                         try {
-                            fileVisitor.write(0, fileName);
+                            fileVisitor.writeError(fileName);
                         } catch (IOException exc1) {
                             System.err.println("Output error writing in file");
                             return;
@@ -72,18 +135,117 @@ public class BaseWalker {
                         continue;
                     }
 
-
-                    Files.walkFileTree(curFilePath, Collections.singleton(FileVisitOption.FOLLOW_LINKS), recursionDepth, fileVisitor);
+                    if (watcher != null) {
+                        // registered before the walk, so changes made during it are not lost
+                        register(watcher, curFilePath);
+                    }
+                    RootWalkEvent event = new RootWalkEvent();
+                    event.begin();
+                    if (treeWalker != null) {
+                        treeWalker.walkFileTree(curFilePath, fileVisitor);
+                    } else {
+                        Files.walkFileTree(curFilePath, Collections.singleton(FileVisitOption.FOLLOW_LINKS), recursionDepth, fileVisitor);
+                    }
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.root = fileName;
+                        event.commit();
+                    }
                 }
             } catch (IOException exc) {
                 System.err.println("Output error opening or creating the file: " + exc.getMessage());
+                return;
+            }
+            if (context.getStatistics() != null) {
+                System.err.println(context.getStatistics().summary());
+            }
+            if (index != null) {
+                saveIndex(index, indexFilePath);
+            }
+            if (context.getDeduplicator() != null) {
+                System.err.println("Links: " + context.getDeduplicator().getReused() + " paths to already read files");
+            }
+            if (duplicatesFilePath != null) {
+                writeDuplicates(context.getDuplicates(), duplicatesFilePath);
+            }
+            if (watcher != null) {
+                watch(watcher, outputFilePath, new WalkContext().setIndex(index).setArchives(options.isArchives()), treePool);
             }
         } catch (IOException exc) {
             System.err.println("Input error opening the file: " + exc.getMessage());
+        } finally {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException exc) {
+                    System.err.println("Watch error closing: " + exc.getMessage());
+                }
+            }
+            if (treePool != null) {
+                treePool.shutdownNow();
+            }
+            if (walkPool != null) {
+                walkPool.shutdownNow();
+            }
+        }
+    }
+
+    // Files reached again by links may change between the delta batches, so deltas are not deduplicated
+    private void watch(HashWatcher watcher, Path outputFilePath, WalkContext context, ForkJoinPool treePool) {
+        try (OutputStream output = new BufferedOutputStream(
+                Files.newOutputStream(outputFilePath, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+             HashingFileVisitor fileVisitor = createFileVisitor(output, context, treePool, true)) {
+            watcher.watch(fileVisitor);
+        } catch (IOException exc) {
+            System.err.println("Watch error: " + exc.getMessage());
+        }
+    }
+
+    private static void register(HashWatcher watcher, Path root) {
+        try {
+            watcher.register(root);
+        } catch (IOException exc) {
+            System.err.println("Watch error registering " + root + ": " + exc.getMessage());
+        }
+    }
+
+    private HashingFileVisitor createFileVisitor(OutputStream stream, WalkContext context, ForkJoinPool treePool,
+                                                 boolean append) throws IOException {
+        Supplier<BufferHasher> hasherFactory = Hashers.get(options.getHasher());
+        DigestWriter output = options.getFormat().create(stream, Hashers.digestLengths(hasherFactory.get()),
+                Hashers.names(options.getHasher()), append);
+        Supplier<FileHasher> fileHasherFactory = options.getTreeChunkSize() > 0
+                ? () -> new TreeFileHasher(hasherFactory, options.getTreeChunkSize(), treePool, context.getStatistics())
+                : () -> new FileHasher(hasherFactory.get(), context.getStatistics());
+        if (options.getThreads() > 1 && !append) {
+            return new ParallelHashingFileVisitor(fileHasherFactory, output, options.getThreads(), context);
+        }
+        return new HashingFileVisitor(fileHasherFactory.get(), output, context);
+    }
+
+    private static void saveIndex(HashIndex index, Path indexFilePath) {
+        System.err.println("Index: " + index.getHits() + " hits, " + index.getMisses() + " misses");
+        try {
+            index.save(indexFilePath);
+        } catch (IOException exc) {
+            System.err.println("Index error saving the file: " + exc.getMessage());
         }
     }
 
     public BaseWalker(int recursionDepth) {
+        this(recursionDepth, new WalkOptions());
+    }
+
+    public BaseWalker(int recursionDepth, WalkOptions options) {
         this.recursionDepth = recursionDepth;
+        this.options = options;
+    }
+
+    private static void writeDuplicates(DuplicateReport duplicates, Path duplicatesFilePath) {
+        try (BufferedWriter output = Files.newBufferedWriter(duplicatesFilePath, StandardCharsets.UTF_8)) {
+            duplicates.write(output);
+        } catch (IOException exc) {
+            System.err.println("Duplicates report error writing the file: " + exc.getMessage());
+        }
     }
 }
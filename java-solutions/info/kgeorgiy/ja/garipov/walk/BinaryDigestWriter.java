@@ -0,0 +1,76 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Header: magic, version, number of digests and their lengths (big-endian ints).
+// Record: flags byte (1 = unreadable), fixed-width digest, path length (int) and UTF-8 path bytes.
+public class BinaryDigestWriter implements DigestWriter {
+    static final int MAGIC = 0x57484153;
+    static final int VERSION = 1;
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream output;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int length = 0;
+
+    public BinaryDigestWriter(OutputStream output, int[] digestLengths, boolean header) throws IOException {
+        this.output = output;
+        if (!header) {
+            return;
+        }
+        writeInt(MAGIC);
+        writeInt(VERSION);
+        writeInt(digestLengths.length);
+        for (int digestLength : digestLengths) {
+            writeInt(digestLength);
+        }
+    }
+
+    @Override
+    public void write(byte[] digest, String fileName, boolean failed) throws IOException {
+        byte[] path = fileName.getBytes(StandardCharsets.UTF_8);
+        ensure(1);
+        buffer[length++] = (byte) (failed ? 1 : 0);
+        write(digest);
+        writeInt(path.length);
+        write(path);
+    }
+
+    private void ensure(int count) throws IOException {
+        if (length + count > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - length) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                output.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void flushBuffer() throws IOException {
+        output.write(buffer, 0, length);
+        length = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        output.flush();
+    }
+}
@@ -0,0 +1,42 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+// Incremental hashing over byte buffers: reset(), update() with consecutive chunks, then digest()
+public interface BufferHasher extends Hasher {
+    void reset();
+
+    // Consumes all remaining bytes of the buffer
+    void update(ByteBuffer buffer);
+
+    // First 64 bits of the digest
+    long digest();
+
+    default int digestLength() {
+        return Long.BYTES;
+    }
+
+    // Writes the digest in big-endian order, so 64-bit digests print the same as %016x
+    default void digest(byte[] output, int offset) {
+        long digest = digest();
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            output[offset + i] = (byte) digest;
+            digest >>>= 8;
+        }
+    }
+
+    @Override
+    default long hash(InputStream input) throws IOException {
+        reset();
+        byte[] bytes = new byte[FileHasher.DIRECT_BUFFER_SIZE];
+        try (InputStream inputStream = input) {
+            int readBytesCount;
+            while ((readBytesCount = inputStream.read(bytes)) != -1) {
+                update(ByteBuffer.wrap(bytes, 0, readBytesCount));
+            }
+        }
+        return digest();
+    }
+}
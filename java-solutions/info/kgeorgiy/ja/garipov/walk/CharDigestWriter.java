@@ -0,0 +1,60 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Formats records into a reusable char buffer that is written out in large blocks
+public abstract class CharDigestWriter implements DigestWriter {
+    static final int BUFFER_SIZE = 1 << 16;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Writer output;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int length = 0;
+
+    protected CharDigestWriter(Writer output) {
+        this.output = output;
+    }
+
+    protected void ensure(int count) throws IOException {
+        if (length + count > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    protected void append(char c) throws IOException {
+        ensure(1);
+        buffer[length++] = c;
+    }
+
+    protected void append(String s) throws IOException {
+        if (s.length() > buffer.length - length) {
+            flushBuffer();
+            if (s.length() > buffer.length) {
+                output.write(s);
+                return;
+            }
+        }
+        s.getChars(0, s.length(), buffer, length);
+        length += s.length();
+    }
+
+    protected void appendHex(byte[] bytes, int offset, int count) throws IOException {
+        ensure(2 * count);
+        for (int i = offset; i < offset + count; i++) {
+            buffer[length++] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            buffer[length++] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        output.write(buffer, 0, length);
+        length = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        output.flush();
+    }
+}
@@ -0,0 +1,60 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+// Feeds every chunk to several hashers, so several digests take a single read of the file
+public class CompositeHasher implements BufferHasher {
+    private final List<BufferHasher> hashers;
+
+    public CompositeHasher(List<BufferHasher> hashers) {
+        if (hashers.isEmpty()) {
+            throw new IllegalArgumentException("At least one hasher required");
+        }
+        this.hashers = List.copyOf(hashers);
+    }
+
+    public List<BufferHasher> getHashers() {
+        return hashers;
+    }
+
+    @Override
+    public void reset() {
+        hashers.forEach(BufferHasher::reset);
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        for (BufferHasher hasher : hashers) {
+            buffer.position(position);
+            hasher.update(buffer);
+        }
+    }
+
+    // 64-bit view of the first digest
+    @Override
+    public long digest() {
+        byte[] digest = new byte[digestLength()];
+        digest(digest, 0);
+        long result = 0;
+        for (int i = 0; i < Long.BYTES && i < digest.length; i++) {
+            result = (result << 8) | (digest[i] & 0xff);
+        }
+        return result;
+    }
+
+    @Override
+    public int digestLength() {
+        return hashers.stream().mapToInt(BufferHasher::digestLength).sum();
+    }
+
+    // Digests are concatenated in the order the hashers were given
+    @Override
+    public void digest(byte[] output, int offset) {
+        for (BufferHasher hasher : hashers) {
+            hasher.digest(output, offset);
+            offset += hasher.digestLength();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+public class Crc32cHasher implements BufferHasher {
+    private final CRC32C crc = new CRC32C();
+
+    @Override
+    public void reset() {
+        crc.reset();
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        crc.update(buffer);
+    }
+
+    @Override
+    public long digest() {
+        return crc.getValue();
+    }
+}
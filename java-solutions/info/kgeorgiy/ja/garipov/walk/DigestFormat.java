@@ -0,0 +1,33 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+public enum DigestFormat {
+    TEXT, NDJSON, BINARY;
+
+    public static DigestFormat of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown output format " + name);
+        }
+    }
+
+    // names are used as NDJSON keys, one per digest; appended binary output has no header
+    public DigestWriter create(OutputStream output, int[] digestLengths, List<String> names, boolean append)
+            throws IOException {
+        switch (this) {
+            case NDJSON:
+                return new JsonDigestWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), digestLengths, names);
+            case BINARY:
+                return new BinaryDigestWriter(output, digestLengths, !append);
+            default:
+                return new TextDigestWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), digestLengths);
+        }
+    }
+}
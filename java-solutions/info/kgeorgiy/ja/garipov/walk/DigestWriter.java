@@ -0,0 +1,10 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+// Output record sink; implementations buffer records and are not thread-safe
+public interface DigestWriter extends Flushable {
+    // failed is set when the file could not be read and the digest is all zeroes
+    void write(byte[] digest, String fileName, boolean failed) throws IOException;
+}
@@ -0,0 +1,71 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Groups distinct paths by file size and digest. Groups with several paths are written as
+// "<digest> <size> <path>" lines, separated by empty lines
+public class DuplicateReport {
+    private final Map<Key, Set<String>> groups = new ConcurrentHashMap<>();
+
+    private static final class Key implements Comparable<Key> {
+        private final long size;
+        private final byte[] digest;
+
+        private Key(final long size, final byte[] digest) {
+            this.size = size;
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return size == key.size && Arrays.equals(digest, key.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Arrays.hashCode(digest);
+        }
+
+        @Override
+        public int compareTo(final Key key) {
+            final int compare = Arrays.compareUnsigned(digest, key.digest);
+            return compare != 0 ? compare : Long.compare(size, key.size);
+        }
+    }
+
+    public void add(final long size, final byte[] digest, final String fileName) {
+        groups.computeIfAbsent(new Key(size, digest), key -> ConcurrentHashMap.newKeySet()).add(fileName);
+    }
+
+    public void write(final Writer output) throws IOException {
+        final List<Key> keys = new ArrayList<>(groups.keySet());
+        Collections.sort(keys);
+        boolean first = true;
+        for (final Key key : keys) {
+            final List<String> fileNames = new ArrayList<>(groups.get(key));
+            if (fileNames.size() < 2) {
+                continue;
+            }
+            Collections.sort(fileNames);
+            if (!first) {
+                output.write(System.lineSeparator());
+            }
+            first = false;
+            final StringBuilder prefix = new StringBuilder();
+            for (final byte b : key.digest) {
+                prefix.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            prefix.append(' ').append(key.size).append(' ');
+            for (final String fileName : fileNames) {
+                output.write(prefix + fileName + System.lineSeparator());
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import jdk.jfr.*;
+
+// Hashing of a single file, from the index lookup to the digest; fields are set only when recorded
+@Name("info.kgeorgiy.ja.garipov.walk.FileHash")
+@Label("File Hash")
+@Category("Walk")
+@StackTrace(false)
+class FileHashEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    @Label("Cached")
+    boolean cached;
+
+    @Label("Failed")
+    boolean failed;
+}
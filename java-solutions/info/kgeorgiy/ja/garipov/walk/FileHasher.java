@@ -0,0 +1,121 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Hashes whole files with a single hasher; not thread-safe, one instance per thread.
+// Subclasses may define a different digest of the file (see TreeFileHasher)
+public class FileHasher {
+    static final long MAPPING_THRESHOLD = 4L << 20;
+    static final long MAPPING_WINDOW = 1L << 30;
+    static final int DIRECT_BUFFER_SIZE = 64 << 10;
+
+    private final Hasher hasher;
+    private final WalkStatistics statistics;
+    private ByteBuffer directBuffer;
+    private byte[] streamBuffer;
+
+    public FileHasher(Hasher hasher) {
+        this(hasher, null);
+    }
+
+    // Records the time of opening the files when statistics are not null
+    public FileHasher(Hasher hasher, WalkStatistics statistics) {
+        this.hasher = hasher;
+        this.statistics = statistics;
+    }
+
+    public Hasher getHasher() {
+        return hasher;
+    }
+
+    public int digestLength() {
+        return hasher instanceof BufferHasher ? ((BufferHasher) hasher).digestLength() : Long.BYTES;
+    }
+
+    public byte[] hash(Path file) throws IOException {
+        byte[] digest = new byte[digestLength()];
+        if (hasher instanceof BufferHasher) {
+            hash((BufferHasher) hasher, file);
+            ((BufferHasher) hasher).digest(digest, 0);
+            return digest;
+        }
+        try (InputStream inputStream = Channels.newInputStream(open(file))) {
+            return toDigest(hasher.hash(inputStream), digest);
+        }
+    }
+
+    // Digest of the remaining bytes of the stream, e.g. of an archive entry
+    public byte[] hash(InputStream input) throws IOException {
+        byte[] digest = new byte[digestLength()];
+        if (!(hasher instanceof BufferHasher)) {
+            return toDigest(hasher.hash(input), digest);
+        }
+        BufferHasher bufferHasher = (BufferHasher) hasher;
+        bufferHasher.reset();
+        read(bufferHasher, input);
+        bufferHasher.digest(digest, 0);
+        return digest;
+    }
+
+    void read(BufferHasher hasher, InputStream input) throws IOException {
+        if (streamBuffer == null) {
+            streamBuffer = new byte[DIRECT_BUFFER_SIZE];
+        }
+        int read;
+        while ((read = input.read(streamBuffer)) != -1) {
+            hasher.update(ByteBuffer.wrap(streamBuffer, 0, read));
+        }
+    }
+
+    FileChannel open(Path file) throws IOException {
+        if (statistics == null) {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        }
+        long start = System.nanoTime();
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        statistics.fileOpened(System.nanoTime() - start);
+        return channel;
+    }
+
+    private static byte[] toDigest(long hash, byte[] digest) {
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            digest[i] = (byte) hash;
+            hash >>>= 8;
+        }
+        return digest;
+    }
+
+    private void hash(BufferHasher hasher, Path file) throws IOException {
+        try (FileChannel channel = open(file)) {
+            hasher.reset();
+            long size = channel.size();
+            if (size >= MAPPING_THRESHOLD) {
+                for (long position = 0; position < size; position += MAPPING_WINDOW) {
+                    hasher.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAPPING_WINDOW, size - position)));
+                }
+                // the file may have grown since it was mapped: read the rest like the stream path does
+                channel.position(size);
+            }
+            read(hasher, channel);
+        }
+    }
+
+    private void read(BufferHasher hasher, FileChannel channel) throws IOException {
+        if (directBuffer == null) {
+            directBuffer = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        }
+        directBuffer.clear();
+        while (channel.read(directBuffer) != -1) {
+            directBuffer.flip();
+            hasher.update(directBuffer);
+            directBuffer.clear();
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Replacement for Files.walkFileTree(start, {FOLLOW_LINKS}, maxDepth, visitor):
+// directories are listed and their entries stat-ed as fork/join tasks, while the visitor is
+// called from the calling thread in the same order and with the same failures as the sequential walk.
+// Listing runs at most LOOKAHEAD directories ahead of the visitor, so memory holds the listings of those
+// directories and of the ones on the current path, not of the whole tree
+public class ForkJoinFileTreeWalker {
+    // entries of a wide directory are stat-ed by subtasks of at most this size
+    private static final int STAT_BATCH = 64;
+    // directories listed, or being listed, that the visitor has not entered yet
+    private static final int LOOKAHEAD = 256;
+
+    private final ForkJoinPool pool;
+    private final int maxDepth;
+
+    public ForkJoinFileTreeWalker(ForkJoinPool pool, int maxDepth) {
+        this.pool = pool;
+        this.maxDepth = maxDepth;
+    }
+
+    private static final class Listing {
+        private final List<Item> items;
+        private final IOException openException;
+        private final IOException iterationException;
+
+        private Listing(List<Item> items, IOException openException, IOException iterationException) {
+            this.items = items;
+            this.openException = openException;
+            this.iterationException = iterationException;
+        }
+    }
+
+    private static final class Item {
+        private final Path path;
+        private final BasicFileAttributes attrs;
+        private final IOException exception;
+        private final DirectoryTask directory;
+
+        private Item(Path path, BasicFileAttributes attrs, IOException exception, DirectoryTask directory) {
+            this.path = path;
+            this.attrs = attrs;
+            this.exception = exception;
+            this.directory = directory;
+        }
+    }
+
+    // Directories on the path from the root, for symbolic link cycle detection
+    private static final class Ancestor {
+        private final Path path;
+        private final Object fileKey;
+        private final Ancestor parent;
+
+        private Ancestor(Path path, Object fileKey, Ancestor parent) {
+            this.path = path;
+            this.fileKey = fileKey;
+            this.parent = parent;
+        }
+
+        private boolean contains(Path path, Object fileKey) {
+            for (Ancestor ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+                if (fileKey != null && ancestor.fileKey != null) {
+                    if (fileKey.equals(ancestor.fileKey)) {
+                        return true;
+                    }
+                } else {
+                    try {
+                        if (Files.isSameFile(path, ancestor.path)) {
+                            return true;
+                        }
+                    } catch (IOException | SecurityException ignored) {
+                        // not comparable, as in Files.walkFileTree
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Frame {
+        private final Path directory;
+        private final Listing listing;
+        private int index = 0;
+        private boolean skipSiblings = false;
+
+        private Frame(Path directory, Listing listing) {
+            this.directory = directory;
+            this.listing = listing;
+        }
+    }
+
+    private final class DirectoryTask extends RecursiveTask<Listing> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final int depth;
+        private final Ancestor ancestors;
+        private final WalkState walk;
+        // used by the visiting thread only
+        private boolean started = false;
+        private boolean skipped = false;
+
+        private DirectoryTask(Path directory, int depth, Ancestor ancestors, WalkState walk) {
+            this.directory = directory;
+            this.depth = depth;
+            this.ancestors = ancestors;
+            this.walk = walk;
+        }
+
+        @Override
+        protected Listing compute() {
+            if (walk.cancelled) {
+                return new Listing(List.of(), null, null);
+            }
+            List<Path> entries = new ArrayList<>();
+            IOException iterationException = null;
+            DirectoryStream<Path> stream;
+            try {
+                stream = Files.newDirectoryStream(directory);
+            } catch (IOException e) {
+                return new Listing(null, e, null);
+            }
+            try (stream) {
+                for (Path entry : stream) {
+                    entries.add(entry);
+                }
+            } catch (DirectoryIteratorException e) {
+                iterationException = e.getCause();
+            } catch (IOException e) {
+                iterationException = e;
+            }
+            Item[] items = new Item[entries.size()];
+            new StatTask(this, entries, items, 0, items.length).invoke();
+            return new Listing(Arrays.asList(items), null, iterationException);
+        }
+
+        private Item item(Path entry) {
+            BasicFileAttributes attrs;
+            try {
+                attrs = readAttributes(entry);
+            } catch (IOException e) {
+                return new Item(entry, null, e, null);
+            }
+            if (depth + 1 >= maxDepth || !attrs.isDirectory()) {
+                return new Item(entry, attrs, null, null);
+            }
+            if (ancestors.contains(entry, attrs.fileKey())) {
+                return new Item(entry, attrs, new FileSystemLoopException(entry.toString()), null);
+            }
+            // started by the visitor, see Lookahead
+            DirectoryTask task = new DirectoryTask(entry, depth + 1,
+                    new Ancestor(entry, attrs.fileKey(), ancestors), walk);
+            return new Item(entry, attrs, null, task);
+        }
+    }
+
+    private static final class StatTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DirectoryTask directory;
+        private final List<Path> entries;
+        private final Item[] items;
+        private final int from;
+        private final int to;
+
+        private StatTask(DirectoryTask directory, List<Path> entries, Item[] items, int from, int to) {
+            this.directory = directory;
+            this.entries = entries;
+            this.items = items;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= STAT_BATCH) {
+                for (int i = from; i < to; i++) {
+                    items[i] = directory.item(entries.get(i));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new StatTask(directory, entries, items, from, middle),
+                        new StatTask(directory, entries, items, middle, to));
+            }
+        }
+    }
+
+    // Directory tasks started ahead of the visitor, used by the visiting thread only.
+    // Subdirectories of an entered directory are the nearest ones in the visiting order,
+    // so they are started before the ones waiting from the directories above
+    private final class Lookahead {
+        // not started yet, the nearest in the visiting order first; entries may be started or skipped already
+        private final Deque<DirectoryTask> waiting = new ArrayDeque<>();
+        private int started = 0;
+
+        private void start(DirectoryTask task) {
+            task.started = true;
+            started++;
+            pool.execute(task);
+        }
+
+        private void fill() {
+            while (started < LOOKAHEAD && !waiting.isEmpty()) {
+                DirectoryTask task = waiting.pollFirst();
+                if (!task.started && !task.skipped) {
+                    start(task);
+                }
+            }
+        }
+
+        private Listing join(DirectoryTask task) {
+            if (!task.started) {
+                start(task);
+            }
+            Listing listing = task.join();
+            started--;
+            return listing;
+        }
+
+        private void entered(Listing listing) {
+            for (int i = listing.items.size() - 1; i >= 0; i--) {
+                DirectoryTask task = listing.items.get(i).directory;
+                if (task != null) {
+                    waiting.addFirst(task);
+                }
+            }
+            fill();
+        }
+
+        // Subdirectories of the frame that are left unvisited
+        private void skipped(Frame frame) {
+            for (int i = frame.index; i < frame.listing.items.size(); i++) {
+                DirectoryTask task = frame.listing.items.get(i).directory;
+                if (task != null) {
+                    task.skipped = true;
+                    if (task.started) {
+                        task.cancel(false);
+                        started--;
+                    }
+                }
+            }
+            fill();
+        }
+    }
+
+    // Cancellation flag shared by the tasks of a single walk
+    private static final class WalkState {
+        private volatile boolean cancelled = false;
+    }
+
+    // Same fallback as Files.walkFileTree: attributes of a dangling link are those of the link itself
+    private static BasicFileAttributes readAttributes(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    public void walkFileTree(Path start, FileVisitor<? super Path> visitor) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = readAttributes(start);
+        } catch (IOException e) {
+            visitor.visitFileFailed(start, e);
+            return;
+        }
+        if (maxDepth <= 0 || !attrs.isDirectory()) {
+            visitor.visitFile(start, attrs);
+            return;
+        }
+
+        WalkState walk = new WalkState();
+        DirectoryTask root = new DirectoryTask(start, 0, new Ancestor(start, attrs.fileKey(), null), walk);
+        try {
+            visit(start, attrs, root, visitor);
+        } finally {
+            walk.cancelled = true;
+        }
+    }
+
+    private void visit(Path start, BasicFileAttributes attrs, DirectoryTask root,
+                       FileVisitor<? super Path> visitor) throws IOException {
+        Deque<Frame> stack = new ArrayDeque<>();
+        Lookahead lookahead = new Lookahead();
+        Frame rootFrame = enter(start, attrs, root, visitor, lookahead);
+        if (rootFrame == null) {
+            return;
+        }
+        stack.push(rootFrame);
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            FileVisitResult result;
+            if (frame.skipSiblings || frame.index == frame.listing.items.size()) {
+                stack.pop();
+                lookahead.skipped(frame);
+                result = visitor.postVisitDirectory(frame.directory, frame.listing.iterationException);
+                if (result == FileVisitResult.TERMINATE) {
+                    return;
+                }
+                if (result == FileVisitResult.SKIP_SIBLINGS && !stack.isEmpty()) {
+                    stack.peek().skipSiblings = true;
+                }
+                continue;
+            }
+
+            Item item = frame.listing.items.get(frame.index++);
+            if (item.exception != null) {
+                result = visitor.visitFileFailed(item.path, item.exception);
+            } else if (item.directory == null) {
+                result = visitor.visitFile(item.path, item.attrs);
+            } else {
+                Frame child = enter(item.path, item.attrs, item.directory, visitor, lookahead);
+                if (child == TERMINATED) {
+                    return;
+                }
+                if (child == SKIPPED_SIBLINGS) {
+                    frame.skipSiblings = true;
+                } else if (child != null) {
+                    stack.push(child);
+                }
+                continue;
+            }
+            if (result == FileVisitResult.TERMINATE) {
+                return;
+            }
+            if (result == FileVisitResult.SKIP_SIBLINGS) {
+                frame.skipSiblings = true;
+            }
+        }
+    }
+
+    private static final Frame TERMINATED = new Frame(null, null);
+    private static final Frame SKIPPED_SIBLINGS = new Frame(null, null);
+
+    // Returns the frame of an entered directory, null if it was skipped or failed to open,
+    // or one of the TERMINATED/SKIPPED_SIBLINGS markers
+    private static Frame enter(Path directory, BasicFileAttributes attrs, DirectoryTask task,
+                               FileVisitor<? super Path> visitor, Lookahead lookahead) throws IOException {
+        Listing listing = lookahead.join(task);
+        FileVisitResult result = listing.openException != null
+                ? visitor.visitFileFailed(directory, listing.openException)
+                : visitor.preVisitDirectory(directory, attrs);
+        switch (result) {
+            case TERMINATE:
+                return TERMINATED;
+            case SKIP_SIBLINGS:
+                return SKIPPED_SIBLINGS;
+            case SKIP_SUBTREE:
+                return null;
+            default:
+                if (listing.openException != null) {
+                    return null;
+                }
+                lookahead.entered(listing);
+                return new Frame(directory, listing);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Persistent path -> digest cache, validated by file size, modification time and file key.
+// Only entries seen during the current run are saved, so deleted files are pruned.
+public class HashIndex {
+    private static final int MAGIC = 0x504A5749;
+    private static final int VERSION = 2;
+    // files modified this recently may still change within the same timestamp, so they are not cached
+    private static final long RACY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+    // path and file key lengths, size, modification time and digest length
+    private static final int ENTRY_MIN_BYTES = Integer.BYTES + 2 * Long.BYTES + 2 * Integer.BYTES;
+
+    private final String hasher;
+    private final Map<String, Entry> loaded;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static class Entry {
+        private final long size;
+        private final long modified;
+        private final String fileKey;
+        private final byte[] digest;
+
+        public Entry(final long size, final long modified, final String fileKey, final byte[] digest) {
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+            this.digest = digest;
+        }
+
+        public Entry(final BasicFileAttributes attrs, final byte[] digest) {
+            this(attrs.size(), attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS), fileKey(attrs), digest);
+        }
+
+        public boolean matches(final BasicFileAttributes attrs) {
+            return size == attrs.size() && modified == attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS)
+                    && Objects.equals(fileKey, fileKey(attrs));
+        }
+
+        private static String fileKey(final BasicFileAttributes attrs) {
+            final Object key = attrs.fileKey();
+            return key == null ? null : key.toString();
+        }
+    }
+
+    private HashIndex(final String hasher, final Map<String, Entry> loaded) {
+        this.hasher = hasher;
+        this.loaded = loaded;
+    }
+
+    public static HashIndex empty(final String hasher) {
+        return new HashIndex(hasher, Map.of());
+    }
+
+    // Digests are only reused for the same hasher specification.
+    // A corrupted index fails with IOException, whatever the damaged count or length is
+    public static HashIndex load(final Path file, final String hasher, final int digestLength) throws IOException {
+        if (Files.notExists(file)) {
+            return empty(hasher);
+        }
+        try (IndexInput input = new IndexInput(file)) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Unsupported hash index format: " + file);
+            }
+            if (!hasher.equals(input.readString())) {
+                return empty(hasher);
+            }
+            final int count = input.readInt();
+            if (count < 0 || count > input.remaining / ENTRY_MIN_BYTES) {
+                throw new IOException("Corrupted hash index, wrong entry count " + count + ": " + file);
+            }
+            final Map<String, Entry> entries = new ConcurrentHashMap<>(count);
+            for (int i = 0; i < count; i++) {
+                final String path = input.readString();
+                final long size = input.readLong();
+                final long modified = input.readLong();
+                final String fileKey = input.readString();
+                final int length = input.readInt();
+                if (path == null || length != digestLength) {
+                    throw new IOException("Corrupted hash index, wrong entry " + i + ": " + file);
+                }
+                entries.put(path, new Entry(size, modified, fileKey, input.readBytes(length)));
+            }
+            return new HashIndex(hasher, entries);
+        } catch (final EOFException e) {
+            throw new IOException("Truncated hash index: " + file, e);
+        }
+    }
+
+    // Checks every length read against the bytes left in the file before allocating anything
+    private static final class IndexInput implements Closeable {
+        private final Path file;
+        private final DataInputStream input;
+        private long remaining;
+
+        private IndexInput(final Path file) throws IOException {
+            this.file = file;
+            this.remaining = Files.size(file);
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        }
+
+        private void consume(final long bytes) throws IOException {
+            if (bytes > remaining) {
+                throw new EOFException();
+            }
+            remaining -= bytes;
+        }
+
+        private int readInt() throws IOException {
+            consume(Integer.BYTES);
+            return input.readInt();
+        }
+
+        private long readLong() throws IOException {
+            consume(Long.BYTES);
+            return input.readLong();
+        }
+
+        private byte[] readBytes(final int length) throws IOException {
+            consume(length);
+            final byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            return bytes;
+        }
+
+        // -1 stands for null
+        private String readString() throws IOException {
+            final int length = readInt();
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0) {
+                throw new IOException("Corrupted hash index, negative string length " + length + ": " + file);
+            }
+            return new String(readBytes(length), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    // Returns the stored digest for an unchanged file, or null
+    public byte[] get(final String path, final BasicFileAttributes attrs) {
+        final Entry entry = loaded.get(path);
+        if (entry != null && entry.matches(attrs)) {
+            hits.increment();
+            current.put(path, entry);
+            return entry.digest;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(final String path, final BasicFileAttributes attrs, final byte[] digest) {
+        final long modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        final long now = System.currentTimeMillis() * 1_000_000;
+        if (now - modified >= RACY_INTERVAL_NANOS) {
+            current.put(path, new Entry(attrs, digest));
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Writes to a temporary file next to the target, then atomically replaces it
+    public void save(final Path file) throws IOException {
+        final Path directory = file.toAbsolutePath().getParent();
+        final Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                writeString(output, hasher);
+                output.writeInt(current.size());
+                for (final Map.Entry<String, Entry> entry : current.entrySet()) {
+                    final Entry value = entry.getValue();
+                    writeString(output, entry.getKey());
+                    output.writeLong(value.size);
+                    output.writeLong(value.modified);
+                    writeString(output, value.fileKey);
+                    output.writeInt(value.digest.length);
+                    output.write(value.digest);
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
@@ -0,0 +1,195 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+// Watches the walked roots and rehashes created and modified files after a quiet period.
+// Deleted files are reported like unreadable ones.
+public class HashWatcher implements AutoCloseable {
+    // pending changes are processed at the latest after this many debounce intervals
+    private static final int MAX_DEBOUNCE_INTERVALS = 10;
+
+    private final WatchService watchService;
+    private final int recursionDepth;
+    private final long debounceMillis;
+    private final Map<WatchKey, Watched> watched = new HashMap<>();
+    private final Map<Path, Watched> byDirectory = new HashMap<>();
+
+    private static final class Watched {
+        private final Path directory;
+        private final int depth;
+        // file name -> root as given in the input, when only some entries are roots; null means all
+        private final Map<Path, Path> roots;
+
+        private Watched(Path directory, int depth, Map<Path, Path> roots) {
+            this.directory = directory;
+            this.depth = depth;
+            this.roots = roots;
+        }
+
+        private Path entry(Path name) {
+            return roots == null ? directory.resolve(name) : roots.get(name);
+        }
+    }
+
+    public HashWatcher(int recursionDepth, long debounceMillis) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.recursionDepth = recursionDepth;
+        this.debounceMillis = debounceMillis;
+    }
+
+    public void register(Path root) throws IOException {
+        if (Files.isDirectory(root)) {
+            if (recursionDepth > 0) {
+                registerTree(root, 0);
+            }
+            return;
+        }
+        if (root.getFileName() == null) {
+            return;
+        }
+        Path directory = root.getParent() != null ? root.getParent() : Path.of(".");
+        Watched current = byDirectory.get(directory);
+        if (current == null) {
+            current = register(directory, 0, new HashMap<>());
+        }
+        if (current.roots != null) {
+            current.roots.put(root.getFileName(), root);
+        }
+    }
+
+    private void registerTree(Path root, int rootDepth) throws IOException {
+        Files.walkFileTree(root, Collections.singleton(FileVisitOption.FOLLOW_LINKS), recursionDepth - rootDepth,
+                new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                        register(dir, dir.equals(root) ? rootDepth : rootDepth + root.relativize(dir).getNameCount(),
+                                null);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    private Watched register(Path directory, int depth, Map<Path, Path> roots) throws IOException {
+        Watched current = new Watched(directory, depth, roots);
+        watched.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), current);
+        byDirectory.put(directory, current);
+        return current;
+    }
+
+    // Runs until the thread is interrupted, writing a delta line for every changed file
+    public void watch(HashingFileVisitor visitor) throws IOException {
+        Set<Path> pending = new LinkedHashSet<>();
+        long firstPending = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key;
+                if (pending.isEmpty()) {
+                    key = watchService.take();
+                    firstPending = System.currentTimeMillis();
+                } else if (System.currentTimeMillis() - firstPending >= MAX_DEBOUNCE_INTERVALS * debounceMillis) {
+                    key = null;
+                } else {
+                    key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                if (key == null) {
+                    rehash(pending, visitor);
+                    pending.clear();
+                    continue;
+                }
+                Watched current = watched.get(key);
+                if (current != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        handle(current, event, pending);
+                    }
+                }
+                if (!key.reset()) {
+                    watched.remove(key);
+                    if (current != null) {
+                        byDirectory.remove(current.directory);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+            // watching stopped
+        }
+        rehash(pending, visitor);
+    }
+
+    private void handle(Watched current, WatchEvent<?> event, Set<Path> pending) throws IOException {
+        if (event.kind() == OVERFLOW) {
+            System.err.println("Watch events lost in " + current.directory + ", rehashing it");
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(current.directory)) {
+                for (Path entry : stream) {
+                    add(current, entry.getFileName(), pending);
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                System.err.println("Watch error listing " + current.directory + ": " + e.getMessage());
+            }
+            return;
+        }
+        add(current, (Path) event.context(), pending);
+    }
+
+    private void add(Watched current, Path name, Set<Path> pending) throws IOException {
+        Path entry = current.entry(name);
+        if (entry == null) {
+            return;
+        }
+        if (current.roots == null && Files.isDirectory(entry)) {
+            if (current.depth + 1 < recursionDepth && !byDirectory.containsKey(entry)) {
+                // files created together with the directory may predate its registration
+                registerTree(entry, current.depth + 1);
+                addFiles(entry, current.depth + 1, pending);
+            }
+            return;
+        }
+        pending.add(entry);
+    }
+
+    private void addFiles(Path directory, int depth, Set<Path> pending) throws IOException {
+        Files.walkFileTree(directory, Collections.singleton(FileVisitOption.FOLLOW_LINKS), recursionDepth - depth,
+                new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        pending.add(file);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        pending.add(file);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    private void rehash(Set<Path> pending, HashingFileVisitor visitor) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (Path file : pending) {
+            if (!Files.isDirectory(file)) {
+                Files.walkFileTree(file, Collections.singleton(FileVisitOption.FOLLOW_LINKS), 0, visitor);
+            }
+        }
+        visitor.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
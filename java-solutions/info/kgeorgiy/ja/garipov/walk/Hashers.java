@@ -0,0 +1,84 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+// Hasher registry: "pjw", "xxh64", "crc32c", any MessageDigest algorithm ("sha-256", "md5", ...),
+// or a comma-separated list of them for a composite single-pass hasher
+public final class Hashers {
+    public static final String DEFAULT = "pjw";
+
+    private Hashers() {
+    }
+
+    public static Supplier<BufferHasher> get(String spec) {
+        String[] names = spec.split(",");
+        if (names.length == 1) {
+            return single(names[0]);
+        }
+        List<Supplier<BufferHasher>> factories = new ArrayList<>();
+        for (String name : names) {
+            factories.add(single(name));
+        }
+        return () -> {
+            List<BufferHasher> hashers = new ArrayList<>();
+            for (Supplier<BufferHasher> factory : factories) {
+                hashers.add(factory.get());
+            }
+            return new CompositeHasher(hashers);
+        };
+    }
+
+    private static Supplier<BufferHasher> single(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "pjw":
+                return PJWHasher::new;
+            case "xxh64":
+            case "xxhash64":
+                return XxHash64Hasher::new;
+            case "crc32c":
+                return Crc32cHasher::new;
+            case "sha256":
+                return messageDigest("SHA-256");
+            default:
+                return messageDigest(name.trim());
+        }
+    }
+
+    private static Supplier<BufferHasher> messageDigest(String algorithm) {
+        try {
+            new MessageDigestHasher(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unknown hasher " + algorithm);
+        }
+        return () -> {
+            try {
+                return new MessageDigestHasher(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new AssertionError("Algorithm was available: " + algorithm, e);
+            }
+        };
+    }
+
+    public static List<String> names(String spec) {
+        List<String> names = new ArrayList<>();
+        for (String name : spec.split(",")) {
+            names.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+        return names;
+    }
+
+    // Lengths of the digests a hasher produces, one per hex column of the output
+    public static int[] digestLengths(Hasher hasher) {
+        if (hasher instanceof CompositeHasher) {
+            return ((CompositeHasher) hasher).getHashers().stream().mapToInt(BufferHasher::digestLength).toArray();
+        }
+        if (hasher instanceof BufferHasher) {
+            return new int[]{((BufferHasher) hasher).digestLength()};
+        }
+        return new int[]{Long.BYTES};
+    }
+}
@@ -1,46 +1,199 @@
 package info.kgeorgiy.ja.garipov.walk;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
 import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+public class HashingFileVisitor extends SimpleFileVisitor<Path> implements Closeable {
+    private static final List<String> ARCHIVE_EXTENSIONS = List.of(".zip", ".jar");
+    private static final String ENTRY_SEPARATOR = "!/";
+
+    private final FileHasher fileHasher;
+    private final DigestWriter output;
+    private final HashIndex index;
+    private final LinkDeduplicator deduplicator;
+    private final DuplicateReport duplicates;
+    private final boolean archives;
+    private final WalkStatistics statistics;
+    private final byte[] errorDigest;
 
-public class HashingFileVisitor extends SimpleFileVisitor<Path> {
-    private final Hasher hasher;
-    private final Writer output;
     public HashingFileVisitor(Hasher hasher, Writer output) {
-        this.hasher = hasher;
+        this(new FileHasher(hasher), new TextDigestWriter(output, Hashers.digestLengths(hasher)), new WalkContext());
+    }
+
+    public HashingFileVisitor(FileHasher fileHasher, DigestWriter output, WalkContext context) {
+        this.fileHasher = fileHasher;
         this.output = output;
+        this.index = context.getIndex();
+        this.deduplicator = context.getDeduplicator();
+        this.duplicates = context.getDuplicates();
+        this.archives = context.isArchives();
+        this.statistics = context.getStatistics();
+        this.errorDigest = new byte[fileHasher.digestLength()];
     }
 
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-        long hash = 0;
-        try(InputStream inputStream = Files.newInputStream(file)) {
-            hash = hasher.hash(inputStream);
+        if (!visitArchive(file, attrs)) {
+            write(hash(fileHasher, file, attrs), file);
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    // Returns false if the file should be hashed as a whole: archives are off, or it is not a ZIP file
+    protected boolean visitArchive(Path file, BasicFileAttributes attrs) throws IOException {
+        if (!archives || !attrs.isRegularFile() || !isArchiveName(file)) {
+            return false;
+        }
+        ZipFile archive;
+        try {
+            archive = new ZipFile(file.toFile());
+        } catch (ZipException exception) {
+            return false;
+        } catch (IOException exception) {
+            writeError(file.toString());
+            return true;
+        }
+        visitEntries(file, archive);
+        return true;
+    }
+
+    private static boolean isArchiveName(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return ARCHIVE_EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+
+    // Entries are read in the central directory order; takes ownership of the archive
+    protected void visitEntries(Path file, ZipFile archive) throws IOException {
+        try (archive) {
+            for (ZipEntry entry : entries(archive)) {
+                String entryName = entryName(file, entry);
+                write(hash(fileHasher, archive, entry, entryName), entryName);
+            }
+        }
+    }
+
+    protected static List<? extends ZipEntry> entries(ZipFile archive) {
+        return archive.stream().filter(entry -> !entry.isDirectory()).collect(Collectors.toList());
+    }
+
+    protected static String entryName(Path file, ZipEntry entry) {
+        return file + ENTRY_SEPARATOR + entry.getName();
+    }
+
+    // Entries are streamed through the hasher without being extracted, and are not indexed
+    protected byte[] hash(FileHasher fileHasher, ZipFile archive, ZipEntry entry, String entryName) {
+        FileHashEvent event = new FileHashEvent();
+        event.begin();
+        long start = statistics != null ? System.nanoTime() : 0;
+        byte[] digest;
+        try (InputStream input = archive.getInputStream(entry)) {
+            digest = fileHasher.hash(input);
         } catch (IOException exception) {
-            hash = 0;
-        } finally {
-            write(hash, file);
+            digest = errorDigest;
+        }
+        hashed(event, start, entryName, entry.getSize(), false, digest);
+        if (duplicates != null && digest != errorDigest) {
+            duplicates.add(entry.getSize(), digest, entryName);
+        }
+        return digest;
+    }
+
+    protected byte[] hash(FileHasher fileHasher, Path file, BasicFileAttributes attrs) {
+        FileHashEvent event = new FileHashEvent();
+        event.begin();
+        long start = statistics != null ? System.nanoTime() : 0;
+        String fileName = file.toString();
+        byte[] digest = index != null ? index.get(fileName, attrs) : null;
+        boolean cached = digest != null;
+        if (digest == null) {
+            try {
+                digest = deduplicator != null
+                        ? deduplicator.digest(attrs, () -> fileHasher.hash(file))
+                        : fileHasher.hash(file);
+            } catch (IOException exception) {
+                hashed(event, start, fileName, attrs.size(), false, errorDigest);
+                return errorDigest;
+            }
+            if (index != null) {
+                index.put(fileName, attrs, digest);
+            }
+        }
+        hashed(event, start, fileName, attrs.size(), cached, digest);
+        if (duplicates != null) {
+            duplicates.add(attrs.size(), digest, fileName);
+        }
+        return digest;
+    }
+
+    private void hashed(FileHashEvent event, long start, String fileName, long size, boolean cached, byte[] digest) {
+        boolean failed = digest == errorDigest;
+        if (statistics != null && !failed) {
+            statistics.fileHashed(size, System.nanoTime() - start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = fileName;
+            event.size = size;
+            event.cached = cached;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        if (statistics != null) {
+            statistics.directoryVisited();
         }
         return FileVisitResult.CONTINUE;
     }
 
     @Override
     public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-        write(0L, file);
+        writeError(file.toString());
         return FileVisitResult.CONTINUE;
     }
 
-    public void write(long hash, Path file) throws IOException {
-        output.write(String.format("%016x %s%n", hash, file.toString()));
+    public void writeError(String fileName) throws IOException {
+        write(errorDigest, fileName);
+    }
+
+    public void write(byte[] digest, Path file) throws IOException {
+        write(digest, file.toString());
     }
 
-    public void write(long hash, String fileName) throws IOException {
-        output.write(String.format("%016x %s%n", hash, fileName));
+    public void write(byte[] digest, String fileName) throws IOException {
+        if (statistics == null) {
+            output.write(digest, fileName, digest == errorDigest);
+            return;
+        }
+        long start = System.nanoTime();
+        output.write(digest, fileName, digest == errorDigest);
+        statistics.recordWritten(System.nanoTime() - start);
+        if (digest == errorDigest) {
+            statistics.fileFailed();
+        }
+    }
+
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    // Flushes the buffered records; the underlying stream is owned by the caller
+    @Override
+    public void close() throws IOException {
+        output.flush();
     }
 }
@@ -0,0 +1,56 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+// NDJSON: {"path":"...","<hasher>":"<hex>",...} per line, with "error":true for unreadable files
+public class JsonDigestWriter extends CharDigestWriter {
+    private final int[] digestLengths;
+    private final String[] keys;
+
+    public JsonDigestWriter(Writer output, int[] digestLengths, List<String> names) {
+        super(output);
+        if (names.size() != digestLengths.length) {
+            throw new IllegalArgumentException("Name required for every digest");
+        }
+        this.digestLengths = digestLengths;
+        this.keys = names.stream().map(name -> ",\"" + escape(name) + "\":\"").toArray(String[]::new);
+    }
+
+    @Override
+    public void write(byte[] digest, String fileName, boolean failed) throws IOException {
+        append("{\"path\":\"");
+        appendEscaped(fileName);
+        append('"');
+        int offset = 0;
+        for (int i = 0; i < digestLengths.length; i++) {
+            append(keys[i]);
+            appendHex(digest, offset, digestLengths[i]);
+            append('"');
+            offset += digestLengths[i];
+        }
+        if (failed) {
+            append(",\"error\":true");
+        }
+        append("}\n");
+    }
+
+    private void appendEscaped(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                append('\\');
+                append(c);
+            } else if (c < 0x20) {
+                append(String.format("\\u%04x", (int) c));
+            } else {
+                append(c);
+            }
+        }
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
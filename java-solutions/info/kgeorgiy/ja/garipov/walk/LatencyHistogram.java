@@ -0,0 +1,62 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// Lock-free histogram of durations in power-of-two nanosecond buckets; percentiles are bucket upper bounds
+public class LatencyHistogram {
+    private static final int BUCKETS = Long.SIZE;
+
+    // bucket i holds durations in [2^(i-1), 2^i) nanoseconds, bucket 0 holds zero durations
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(final long nanos) {
+        final long duration = Math.max(nanos, 0);
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(duration));
+        max.accumulate(duration);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // Upper bound of the duration below which the given fraction of the records falls
+    public long percentile(final double fraction) {
+        final long count = getCount();
+        final long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min((1L << i) - 1, getMax());
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %d, p50 %s, p90 %s, p99 %s, max %s", getCount(),
+                format(percentile(0.5)), format(percentile(0.9)), format(percentile(0.99)), format(getMax()));
+    }
+
+    private static String format(final long nanos) {
+        if (nanos < TimeUnit.MICROSECONDS.toNanos(10)) {
+            return nanos + "ns";
+        }
+        if (nanos < TimeUnit.MILLISECONDS.toNanos(10)) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+    }
+}
@@ -0,0 +1,56 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Remembers digests by file key, so a file reached through several links or hard links is read once.
+// Concurrent requests for the same file wait for the first one instead of reading it again.
+public class LinkDeduplicator {
+    private final ConcurrentMap<Object, CompletableFuture<byte[]>> digests = new ConcurrentHashMap<>();
+    private final LongAdder reused = new LongAdder();
+
+    public interface Hashing {
+        byte[] hash() throws IOException;
+    }
+
+    public byte[] digest(final BasicFileAttributes attrs, final Hashing hashing) throws IOException {
+        final Object fileKey = attrs.fileKey();
+        if (fileKey == null) {
+            return hashing.hash();
+        }
+        final CompletableFuture<byte[]> created = new CompletableFuture<>();
+        final CompletableFuture<byte[]> existing = digests.putIfAbsent(fileKey, created);
+        if (existing == null) {
+            try {
+                final byte[] digest = hashing.hash();
+                created.complete(digest);
+                return digest;
+            } catch (final IOException | RuntimeException e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        reused.increment();
+        try {
+            return existing.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a linked file", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error hashing a linked file", e.getCause());
+        }
+    }
+
+    // Number of paths whose digest was taken from an already read file
+    public long getReused() {
+        return reused.sum();
+    }
+}
@@ -0,0 +1,48 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class MessageDigestHasher implements BufferHasher {
+    private final MessageDigest messageDigest;
+
+    public MessageDigestHasher(String algorithm) throws NoSuchAlgorithmException {
+        this.messageDigest = MessageDigest.getInstance(algorithm);
+    }
+
+    @Override
+    public void reset() {
+        messageDigest.reset();
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        messageDigest.update(buffer);
+    }
+
+    @Override
+    public long digest() {
+        byte[] digest = messageDigest.digest();
+        long result = 0;
+        for (int i = 0; i < Math.min(Long.BYTES, digest.length); i++) {
+            result = (result << 8) | (digest[i] & 0xff);
+        }
+        return result;
+    }
+
+    @Override
+    public int digestLength() {
+        return messageDigest.getDigestLength();
+    }
+
+    @Override
+    public void digest(byte[] output, int offset) {
+        try {
+            messageDigest.digest(output, offset, digestLength());
+        } catch (DigestException e) {
+            throw new IllegalArgumentException("Digest buffer is too small", e);
+        }
+    }
+}
@@ -2,27 +2,64 @@ package info.kgeorgiy.ja.garipov.walk;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
-public class PJWHasher implements Hasher {
-    final int BUFFER_SIZE = 1024;
+public class PJWHasher implements BufferHasher {
+    final int BUFFER_SIZE = 8192;
     byte[] buffer = new byte[BUFFER_SIZE];
+    private long hash = 0;
 
     @Override
     public long hash(InputStream input) throws IOException {
-        long hash = 0;
+        reset();
         try (InputStream inputStream = input) {
-            long high;
             int readBytesCount;
             while ((readBytesCount = inputStream.read(buffer)) != -1) {
-                for (int i = 0; i < readBytesCount; i++) {
-                    hash = (hash << 8) + (buffer[i] & 0xff);
-                    if ((high = hash & 0xff00_0000_0000_0000L) != 0) {
-                        hash ^= high >> 48;
-                        hash &= ~high;
-                    }
-                }
+                update(buffer, readBytesCount);
             }
         }
+        return digest();
+    }
+
+    @Override
+    public void reset() {
+        hash = 0;
+    }
+
+    @Override
+    public void update(ByteBuffer input) {
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            input.position(input.limit());
+            return;
+        }
+        // direct and mapped buffers are copied in bulk, which avoids per-byte bounds checks
+        while (input.hasRemaining()) {
+            int length = Math.min(input.remaining(), BUFFER_SIZE);
+            input.get(buffer, 0, length);
+            update(buffer, length);
+        }
+    }
+
+    private void update(byte[] bytes, int length) {
+        update(bytes, 0, length);
+    }
+
+    private void update(byte[] bytes, int offset, int length) {
+        long hash = this.hash;
+        long high;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash << 8) + (bytes[i] & 0xff);
+            if ((high = hash & 0xff00_0000_0000_0000L) != 0) {
+                hash ^= high >> 48;
+                hash &= ~high;
+            }
+        }
+        this.hash = hash;
+    }
+
+    @Override
+    public long digest() {
         return hash;
     }
 }
@@ -0,0 +1,160 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class ParallelHashingFileVisitor extends HashingFileVisitor {
+    private static final int QUEUE_SIZE_PER_THREAD = 64;
+    private static final Result END = new Result(null, null);
+
+    private final ExecutorService hashers;
+    private final ThreadLocal<FileHasher> workerHasher;
+    private final BlockingQueue<Result> results;
+    private final Thread writer;
+    private volatile IOException writeException = null;
+
+    private static class Result {
+        private final Future<byte[]> digest;
+        private final String fileName;
+
+        public Result(final Future<byte[]> digest, final String fileName) {
+            this.digest = digest;
+            this.fileName = fileName;
+        }
+    }
+
+    // File hashers are created per worker, since hashers and their read buffers are per-instance state
+    public ParallelHashingFileVisitor(final Supplier<? extends FileHasher> fileHasherFactory, final DigestWriter output,
+                                      final int threads) {
+        this(fileHasherFactory, output, threads, new WalkContext());
+    }
+
+    public ParallelHashingFileVisitor(final Supplier<? extends FileHasher> fileHasherFactory, final DigestWriter output,
+                                      final int threads, final WalkContext context) {
+        super(fileHasherFactory.get(), output, context);
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread's count should be positive");
+        }
+        this.hashers = Executors.newFixedThreadPool(threads);
+        this.workerHasher = ThreadLocal.withInitial(fileHasherFactory);
+        this.results = new ArrayBlockingQueue<>(threads * QUEUE_SIZE_PER_THREAD);
+        this.writer = new Thread(this::writeResults);
+        writer.start();
+    }
+
+    @Override
+    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+        if (visitArchive(file, attrs)) {
+            return FileVisitResult.CONTINUE;
+        }
+        enqueue(new Result(hashers.submit(() -> hash(workerHasher.get(), file, attrs)), file.toString()));
+        return FileVisitResult.CONTINUE;
+    }
+
+    // Entries are hashed by the workers; the last one to finish closes the archive
+    @Override
+    protected void visitEntries(final Path file, final ZipFile archive) throws IOException {
+        final List<? extends ZipEntry> entries = entries(archive);
+        final AtomicInteger left = new AtomicInteger(entries.size());
+        int submitted = 0;
+        try {
+            for (final ZipEntry entry : entries) {
+                final String entryName = entryName(file, entry);
+                enqueue(new Result(hashers.submit(() -> {
+                    try {
+                        return hash(workerHasher.get(), archive, entry, entryName);
+                    } finally {
+                        release(archive, left, 1);
+                    }
+                }), entryName));
+                submitted++;
+            }
+        } finally {
+            release(archive, left, entries.size() - submitted);
+        }
+    }
+
+    // Closing twice is harmless, which covers an archive without entries
+    private static void release(final ZipFile archive, final AtomicInteger left, final int count) {
+        if (left.addAndGet(-count) > 0) {
+            return;
+        }
+        try {
+            archive.close();
+        } catch (final IOException ignored) {
+            // all entries are already read
+        }
+    }
+
+    @Override
+    public void write(final byte[] digest, final String fileName) throws IOException {
+        enqueue(new Result(CompletableFuture.completedFuture(digest), fileName));
+    }
+
+    private void enqueue(final Result result) throws IOException {
+        checkWriteException();
+        try {
+            results.put(result);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the output queue");
+        }
+    }
+
+    private void checkWriteException() throws IOException {
+        final IOException exception = writeException;
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    // Single writer: results are taken in submission order, so the output matches the sequential walk
+    private void writeResults() {
+        try {
+            while (true) {
+                final Result result = results.take();
+                if (result == END) {
+                    break;
+                }
+                if (writeException != null) {
+                    // keep draining, so producers blocked on the full queue are released
+                    continue;
+                }
+                try {
+                    super.write(result.digest.get(), result.fileName);
+                } catch (final IOException e) {
+                    writeException = e;
+                } catch (final ExecutionException e) {
+                    writeException = new IOException("Error hashing " + result.fileName, e.getCause());
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            results.put(END);
+            writer.join();
+        } catch (final InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the output writer");
+        } finally {
+            hashers.shutdownNow();
+        }
+        checkWriteException();
+        super.close();
+    }
+}
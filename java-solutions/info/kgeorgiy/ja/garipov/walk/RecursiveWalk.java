@@ -2,6 +2,6 @@ package info.kgeorgiy.ja.garipov.walk;
 
 public class RecursiveWalk {
     public static void main(String[] args) {
-        new RecursiveWalker().walk(args);
+        BaseWalker.run(args, RecursiveWalker::new);
     }
 }
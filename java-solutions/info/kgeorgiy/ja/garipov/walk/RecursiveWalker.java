@@ -4,4 +4,12 @@ public class RecursiveWalker extends BaseWalker{
     public RecursiveWalker() {
         super(Integer.MAX_VALUE);
     }
+
+    public RecursiveWalker(int threads) {
+        this(new WalkOptions().setThreads(threads));
+    }
+
+    public RecursiveWalker(WalkOptions options) {
+        super(Integer.MAX_VALUE, options);
+    }
 }
@@ -0,0 +1,13 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import jdk.jfr.*;
+
+// Walk of a single input line; with parallel hashing it ends when the last file is submitted
+@Name("info.kgeorgiy.ja.garipov.walk.RootWalk")
+@Label("Root Walk")
+@Category("Walk")
+@StackTrace(false)
+class RootWalkEvent extends Event {
+    @Label("Root")
+    String root;
+}
@@ -0,0 +1,29 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Every digest is printed as a separate lowercase hex column, so a single
+// 64-bit digest keeps the "%016x %s%n" format
+public class TextDigestWriter extends CharDigestWriter {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final int[] digestLengths;
+
+    public TextDigestWriter(Writer output, int[] digestLengths) {
+        super(output);
+        this.digestLengths = digestLengths;
+    }
+
+    @Override
+    public void write(byte[] digest, String fileName, boolean failed) throws IOException {
+        int offset = 0;
+        for (int length : digestLengths) {
+            appendHex(digest, offset, length);
+            append(' ');
+            offset += length;
+        }
+        append(fileName);
+        append(LINE_SEPARATOR);
+    }
+}
@@ -0,0 +1,155 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Two-level Merkle hash: leaf i = H(0x00 || chunk i), root = H(0x01 || leaf 0 || ... || leaf n-1).
+// Chunks are hashed independently with positional reads, so the digest does not depend on the thread count.
+public class TreeFileHasher extends FileHasher {
+    private static final byte LEAF_PREFIX = 0;
+    private static final byte NODE_PREFIX = 1;
+
+    private final long chunkSize;
+    private final ForkJoinPool pool;
+    private final BufferHasher rootHasher;
+    private final ThreadLocal<BufferHasher> leafHasher;
+    private final ThreadLocal<ByteBuffer> leafBuffer =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE));
+
+    // Chunks of a file are hashed in the pool, or in the calling thread if the pool is null
+    public TreeFileHasher(Supplier<? extends BufferHasher> hasherFactory, long chunkSize, ForkJoinPool pool) {
+        this(hasherFactory, chunkSize, pool, null);
+    }
+
+    public TreeFileHasher(Supplier<? extends BufferHasher> hasherFactory, long chunkSize, ForkJoinPool pool,
+                          WalkStatistics statistics) {
+        super(hasherFactory.get(), statistics);
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size should be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+        this.rootHasher = (BufferHasher) getHasher();
+        this.leafHasher = ThreadLocal.withInitial(hasherFactory);
+    }
+
+    @Override
+    public byte[] hash(Path file) throws IOException {
+        try (FileChannel channel = open(file)) {
+            final long size = channel.size();
+            final int leafLength = digestLength();
+            final int chunks = chunks(Math.max(1, (size - 1) / chunkSize + 1), leafLength);
+            final byte[] leaves = new byte[chunks * leafLength];
+            if (pool == null || chunks == 1) {
+                for (int i = 0; i < chunks; i++) {
+                    hashChunk(channel, i, size, leaves, leafLength);
+                }
+            } else {
+                hashChunks(channel, chunks, size, leaves, leafLength);
+            }
+
+            return root(leaves);
+        }
+    }
+
+    // Streams have no positional reads, so their chunks are hashed sequentially; the digest is the same
+    @Override
+    public byte[] hash(final InputStream input) throws IOException {
+        final BufferHasher hasher = leafHasher.get();
+        final byte[] buffer = new byte[DIRECT_BUFFER_SIZE];
+        final byte[] leaf = new byte[digestLength()];
+        final ByteArrayOutputStream leaves = new ByteArrayOutputStream();
+        boolean end = false;
+        while (!end) {
+            hasher.reset();
+            hasher.update(ByteBuffer.wrap(new byte[]{LEAF_PREFIX}));
+            long left = chunkSize;
+            while (left > 0) {
+                final int read = input.read(buffer, 0, (int) Math.min(buffer.length, left));
+                if (read == -1) {
+                    end = true;
+                    break;
+                }
+                left -= read;
+                hasher.update(ByteBuffer.wrap(buffer, 0, read));
+            }
+            // only empty input has an empty leaf, as in chunks = max(1, ceil(size / chunkSize))
+            if (end && left == chunkSize && leaves.size() > 0) {
+                break;
+            }
+            chunks(leaves.size() / leaf.length + 1, leaf.length);
+            hasher.digest(leaf, 0);
+            leaves.write(leaf, 0, leaf.length);
+        }
+        return root(leaves.toByteArray());
+    }
+
+    // All the leaves are kept in one array, which limits the number of chunks
+    private int chunks(final long chunks, final int leafLength) throws IOException {
+        if (chunks > Integer.MAX_VALUE / leafLength) {
+            throw new IOException("Too many chunks of size " + chunkSize + ": " + chunks);
+        }
+        return (int) chunks;
+    }
+
+    private byte[] root(final byte[] leaves) {
+        rootHasher.reset();
+        rootHasher.update(ByteBuffer.wrap(new byte[]{NODE_PREFIX}));
+        rootHasher.update(ByteBuffer.wrap(leaves));
+        final byte[] digest = new byte[digestLength()];
+        rootHasher.digest(digest, 0);
+        return digest;
+    }
+
+    private void hashChunks(final FileChannel channel, final int chunks, final long size,
+                            final byte[] leaves, final int leafLength) throws IOException {
+        try {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(i -> {
+                try {
+                    hashChunk(channel, i, size, leaves, leafLength);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while hashing " + chunks + " chunks", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Error hashing chunks", e.getCause());
+        }
+    }
+
+    private void hashChunk(final FileChannel channel, final int chunk, final long size,
+                           final byte[] leaves, final int leafLength) throws IOException {
+        final BufferHasher hasher = leafHasher.get();
+        final ByteBuffer buffer = leafBuffer.get();
+        hasher.reset();
+        hasher.update(ByteBuffer.wrap(new byte[]{LEAF_PREFIX}));
+        long position = chunk * chunkSize;
+        final long end = Math.min(position + chunkSize, size);
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            final int read = channel.read(buffer, position);
+            if (read == -1) {
+                break;
+            }
+            position += read;
+            buffer.flip();
+            hasher.update(buffer);
+        }
+        hasher.digest(leaves, chunk * leafLength);
+    }
+}
@@ -2,6 +2,6 @@ package info.kgeorgiy.ja.garipov.walk;
 
 public class Walk {
     public static void main(String[] args) {
-        new Walker().walk(args);
+        BaseWalker.run(args, Walker::new);
     }
 }
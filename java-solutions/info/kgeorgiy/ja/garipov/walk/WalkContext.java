@@ -0,0 +1,56 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+// Optional services shared by the visitors of a single walk; absent ones are null
+public class WalkContext {
+    private boolean archives = false;
+    private HashIndex index = null;
+    private LinkDeduplicator deduplicator = null;
+    private DuplicateReport duplicates = null;
+    private WalkStatistics statistics = null;
+
+    public HashIndex getIndex() {
+        return index;
+    }
+
+    public WalkContext setIndex(final HashIndex index) {
+        this.index = index;
+        return this;
+    }
+
+    public LinkDeduplicator getDeduplicator() {
+        return deduplicator;
+    }
+
+    public WalkContext setDeduplicator(final LinkDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+        return this;
+    }
+
+    public DuplicateReport getDuplicates() {
+        return duplicates;
+    }
+
+    public WalkContext setDuplicates(final DuplicateReport duplicates) {
+        this.duplicates = duplicates;
+        return this;
+    }
+
+    public boolean isArchives() {
+        return archives;
+    }
+
+    // ZIP and JAR files are visited like directories of their entries
+    public WalkContext setArchives(final boolean archives) {
+        this.archives = archives;
+        return this;
+    }
+
+    public WalkStatistics getStatistics() {
+        return statistics;
+    }
+
+    public WalkContext setStatistics(final WalkStatistics statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+}
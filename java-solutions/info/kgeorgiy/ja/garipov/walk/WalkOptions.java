@@ -0,0 +1,252 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class WalkOptions {
+    private int threads = 1;
+    private String indexFile = null;
+    private String hasher = Hashers.DEFAULT;
+    private long treeChunkSize = 0;
+    private int walkThreads = 0;
+    private boolean deduplicate = false;
+    private String duplicatesFile = null;
+    private DigestFormat format = DigestFormat.TEXT;
+    private boolean watch = false;
+    private long debounceMillis = 500;
+    private boolean archives = false;
+    private boolean statistics = false;
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public WalkOptions setThreads(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread's count should be positive");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    public String getIndexFile() {
+        return indexFile;
+    }
+
+    public WalkOptions setIndexFile(final String indexFile) {
+        this.indexFile = indexFile;
+        return this;
+    }
+
+    public String getHasher() {
+        return hasher;
+    }
+
+    // Hasher specification, see Hashers.get
+    public WalkOptions setHasher(final String hasher) {
+        Hashers.get(hasher);
+        this.hasher = hasher;
+        return this;
+    }
+
+    public long getTreeChunkSize() {
+        return treeChunkSize;
+    }
+
+    // Enables the tree hash (see TreeFileHasher) with the given chunk size, 0 disables it
+    public WalkOptions setTreeChunkSize(final long treeChunkSize) {
+        if (treeChunkSize < 0) {
+            throw new IllegalArgumentException("Chunk size should be non-negative");
+        }
+        this.treeChunkSize = treeChunkSize;
+        return this;
+    }
+
+    public int getWalkThreads() {
+        return walkThreads;
+    }
+
+    // Threads listing directories (see ForkJoinFileTreeWalker), 0 walks in the calling thread
+    public WalkOptions setWalkThreads(final int walkThreads) {
+        if (walkThreads < 0) {
+            throw new IllegalArgumentException("Thread's count should be non-negative");
+        }
+        this.walkThreads = walkThreads;
+        return this;
+    }
+
+    public boolean isDeduplicate() {
+        return deduplicate;
+    }
+
+    // Reads a file reached through several links only once (see LinkDeduplicator)
+    public WalkOptions setDeduplicate(final boolean deduplicate) {
+        this.deduplicate = deduplicate;
+        return this;
+    }
+
+    public String getDuplicatesFile() {
+        return duplicatesFile;
+    }
+
+    public WalkOptions setDuplicatesFile(final String duplicatesFile) {
+        this.duplicatesFile = duplicatesFile;
+        return this;
+    }
+
+    public DigestFormat getFormat() {
+        return format;
+    }
+
+    public WalkOptions setFormat(final DigestFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    // After the walk, keeps appending lines for changed files (see HashWatcher)
+    public WalkOptions setWatch(final boolean watch) {
+        this.watch = watch;
+        return this;
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    public WalkOptions setDebounceMillis(final long debounceMillis) {
+        if (debounceMillis < 1) {
+            throw new IllegalArgumentException("Debounce interval should be positive");
+        }
+        this.debounceMillis = debounceMillis;
+        return this;
+    }
+
+    public boolean isArchives() {
+        return archives;
+    }
+
+    // Hashes the entries of ZIP and JAR files instead of the files themselves
+    public WalkOptions setArchives(final boolean archives) {
+        this.archives = archives;
+        return this;
+    }
+
+    public boolean isStatistics() {
+        return statistics;
+    }
+
+    // Prints counters and latency percentiles of the walk to stderr (see WalkStatistics)
+    public WalkOptions setStatistics(final boolean statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
+    // Identifies digests produced with these options, e.g. for reusing them from the index
+    public String getDigestName() {
+        return treeChunkSize == 0 ? hasher : hasher + "/tree:" + treeChunkSize;
+    }
+
+    // Consumes "--option [value]" arguments and returns the remaining positional ones
+    public String[] parse(final String[] args) {
+        final List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+            if (arg == null || !arg.startsWith("--")) {
+                arguments.add(arg);
+                continue;
+            }
+            switch (arg) {
+                case "--":
+                    arguments.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                    i = args.length;
+                    break;
+                case "--threads":
+                    setThreads(parseInt(arg, value(args, ++i, arg)));
+                    break;
+                case "--walk-threads":
+                    setWalkThreads(parseInt(arg, value(args, ++i, arg)));
+                    break;
+                case "--hasher":
+                    setHasher(value(args, ++i, arg));
+                    break;
+                case "--tree-hash":
+                    setTreeChunkSize(parseSize(arg, value(args, ++i, arg)));
+                    break;
+                case "--dedup":
+                    setDeduplicate(true);
+                    break;
+                case "--duplicates":
+                    setDuplicatesFile(value(args, ++i, arg));
+                    break;
+                case "--format":
+                    setFormat(DigestFormat.of(value(args, ++i, arg)));
+                    break;
+                case "--watch":
+                    setWatch(true);
+                    break;
+                case "--debounce":
+                    setDebounceMillis(parseInt(arg, value(args, ++i, arg)));
+                    break;
+                case "--archives":
+                    setArchives(true);
+                    break;
+                case "--stats":
+                    setStatistics(true);
+                    break;
+                case "--index":
+                    setIndexFile(value(args, ++i, arg));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        return arguments.toArray(String[]::new);
+    }
+
+    private static String value(final String[] args, final int index, final String option) {
+        if (index >= args.length || args[index] == null) {
+            throw new IllegalArgumentException("Value required for option " + option);
+        }
+        return args[index];
+    }
+
+    // Accepts K, M and G binary suffixes
+    private static long parseSize(final String option, final String value) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Size value required for option " + option);
+        }
+        final int shift;
+        switch (Character.toUpperCase(value.charAt(value.length() - 1))) {
+            case 'K':
+                shift = 10;
+                break;
+            case 'M':
+                shift = 20;
+                break;
+            case 'G':
+                shift = 30;
+                break;
+            default:
+                shift = 0;
+        }
+        final String number = shift == 0 ? value : value.substring(0, value.length() - 1);
+        try {
+            return Math.multiplyExact(Long.parseLong(number), 1L << shift);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Size value required for option " + option + ": " + value);
+        }
+    }
+
+    private static int parseInt(final String option, final String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Integer value required for option " + option + ": " + value);
+        }
+    }
+}
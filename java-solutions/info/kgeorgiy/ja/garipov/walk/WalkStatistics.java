@@ -0,0 +1,67 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latency histograms of a walk. Collected only when present in the WalkContext,
+// so a walk without statistics pays for a null check per file.
+public class WalkStatistics {
+    private final long start = System.nanoTime();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder directories = new LongAdder();
+    // opening the file, hashing it including the open, and writing its output record
+    private final LatencyHistogram open = new LatencyHistogram();
+    private final LatencyHistogram hash = new LatencyHistogram();
+    private final LatencyHistogram write = new LatencyHistogram();
+
+    public void fileHashed(final long size, final long nanos) {
+        files.increment();
+        bytes.add(size);
+        hash.record(nanos);
+    }
+
+    public void fileFailed() {
+        errors.increment();
+    }
+
+    public void directoryVisited() {
+        directories.increment();
+    }
+
+    public void fileOpened(final long nanos) {
+        open.record(nanos);
+    }
+
+    public void recordWritten(final long nanos) {
+        write.record(nanos);
+    }
+
+    public long getFiles() {
+        return files.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getDirectories() {
+        return directories.sum();
+    }
+
+    public String summary() {
+        final long elapsed = Math.max(System.nanoTime() - start, 1);
+        final double seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1);
+        return String.format("Files: %d, directories: %d, errors: %d, bytes: %d in %.3f s (%.1f files/s, %.1f MiB/s)%n"
+                        + "  open:  %s%n"
+                        + "  hash:  %s%n"
+                        + "  write: %s",
+                getFiles(), getDirectories(), getErrors(), getBytes(), seconds,
+                getFiles() / seconds, getBytes() / seconds / (1 << 20), open, hash, write);
+    }
+}
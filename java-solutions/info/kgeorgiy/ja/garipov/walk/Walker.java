@@ -4,4 +4,12 @@ public class Walker extends BaseWalker {
     public Walker() {
         super(0);
     }
+
+    public Walker(int threads) {
+        this(new WalkOptions().setThreads(threads));
+    }
+
+    public Walker(WalkOptions options) {
+        super(0, options);
+    }
 }
@@ -0,0 +1,131 @@
+package info.kgeorgiy.ja.garipov.walk;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// XXH64 with seed 0, reading eight bytes at a time
+public class XxHash64Hasher implements BufferHasher {
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+
+    private static final VarHandle BUFFER_LONG =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle ARRAY_LONG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle ARRAY_INT =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] tail = new byte[STRIPE];
+    private int tailLength;
+    private long length;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    public XxHash64Hasher() {
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        v1 = PRIME64_1 + PRIME64_2;
+        v2 = PRIME64_2;
+        v3 = 0;
+        v4 = -PRIME64_1;
+        length = 0;
+        tailLength = 0;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        final int limit = buffer.limit();
+        length += limit - position;
+
+        if (tailLength > 0) {
+            final int count = Math.min(STRIPE - tailLength, limit - position);
+            buffer.get(tail, tailLength, count);
+            tailLength += count;
+            position += count;
+            if (tailLength < STRIPE) {
+                return;
+            }
+            v1 = round(v1, (long) ARRAY_LONG.get(tail, 0));
+            v2 = round(v2, (long) ARRAY_LONG.get(tail, 8));
+            v3 = round(v3, (long) ARRAY_LONG.get(tail, 16));
+            v4 = round(v4, (long) ARRAY_LONG.get(tail, 24));
+            tailLength = 0;
+        }
+
+        long v1 = this.v1, v2 = this.v2, v3 = this.v3, v4 = this.v4;
+        for (; limit - position >= STRIPE; position += STRIPE) {
+            v1 = round(v1, (long) BUFFER_LONG.get(buffer, position));
+            v2 = round(v2, (long) BUFFER_LONG.get(buffer, position + 8));
+            v3 = round(v3, (long) BUFFER_LONG.get(buffer, position + 16));
+            v4 = round(v4, (long) BUFFER_LONG.get(buffer, position + 24));
+        }
+        this.v1 = v1;
+        this.v2 = v2;
+        this.v3 = v3;
+        this.v4 = v4;
+
+        tailLength = limit - position;
+        buffer.position(position);
+        buffer.get(tail, 0, tailLength);
+    }
+
+    @Override
+    public long digest() {
+        long hash;
+        if (length >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = PRIME64_5;
+        }
+        hash += length;
+
+        int i = 0;
+        for (; i + Long.BYTES <= tailLength; i += Long.BYTES) {
+            hash ^= round(0, (long) ARRAY_LONG.get(tail, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+        }
+        if (i + Integer.BYTES <= tailLength) {
+            hash ^= ((int) ARRAY_INT.get(tail, i) & 0xFFFF_FFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            i += Integer.BYTES;
+        }
+        for (; i < tailLength; i++) {
+            hash ^= (tail[i] & 0xFFL) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long accumulator, final long input) {
+        accumulator += input * PRIME64_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME64_1;
+    }
+
+    private static long mergeRound(long accumulator, final long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME64_1 + PRIME64_4;
+    }
+}